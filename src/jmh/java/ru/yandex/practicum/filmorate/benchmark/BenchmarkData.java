@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Test entities shared by the benchmarks.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static Film film(long i) {
+        return Film.builder()
+                .name("Film " + i)
+                .description("Description of film " + i)
+                .releaseDate(LocalDate.of(1950 + Math.floorMod(i, 70), 1 + Math.floorMod(i, 12), 1 + Math.floorMod(i, 28)))
+                .duration(60 + Math.floorMod(i, 120))
+                .build();
+    }
+
+    static User user(long i) {
+        return User.builder()
+                .email("user" + i + "@mail.ru")
+                .login("user" + i)
+                .name("User " + i)
+                .birthday(LocalDate.of(1970 + Math.floorMod(i, 40), 1 + Math.floorMod(i, 12), 1 + Math.floorMod(i, 28)))
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.Journal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from process start to the first answered request ({@code findById} plus a walk over the film's likes)
+ * for {@code films} films: mapping the binary snapshot versus reloading the catalog from a JSON dump.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ColdStartBenchmark {
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"10"})
+    private int likes;
+
+    @Param({"mapped", "json"})
+    private String source;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private Path dir;
+    private Journal journal;
+    private InMemoryFilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("cold-start-benchmark");
+        Journal writer = new Journal(dir, "films", false);
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(writer);
+        storage.recover();
+        Random random = new Random(42);
+        for (int i = 0; i < films; i++) {
+            long id = storage.create(BenchmarkData.film(i)).getId();
+            for (int j = 0; j < likes; j++) {
+                storage.addLike(id, 1L + random.nextInt(1_000_000));
+            }
+        }
+        storage.snapshot();
+        writer.close();
+        try (OutputStream out = Files.newOutputStream(dir.resolve("films.json"))) {
+            objectMapper.writeValue(out, storage.findAll());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void finishLoading() {
+        if (journal != null) {
+            filmStorage.awaitLoaded();
+            journal.close();
+            journal = null;
+        }
+        filmStorage = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        JournalBenchmark.delete(dir);
+    }
+
+    @Benchmark
+    public long firstRequest() throws IOException {
+        if (source.equals("mapped")) {
+            journal = new Journal(dir, "films", false);
+            filmStorage = new InMemoryFilmStorage(journal);
+            filmStorage.recover();
+        } else {
+            filmStorage = new InMemoryFilmStorage();
+            try (InputStream in = Files.newInputStream(dir.resolve("films.json"));
+                 MappingIterator<Film> iterator = objectMapper.readerFor(Film.class).readValues(in)) {
+                while (iterator.hasNext()) {
+                    filmStorage.create(iterator.next());
+                }
+            }
+        }
+        long sum = 0;
+        for (long userId : filmStorage.findById(films / 2L).orElseThrow().getLikes()) {
+            sum += userId;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Common friends of two users whose friend lists overlap by half, comparing the previous
+ * stream/filter/findById approach with the sorted intersection and batch lookup in {@link UserService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonFriendsBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int friends;
+
+    private InMemoryUserStorage userStorage;
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, new InMemoryFilmStorage(), new UserValidator());
+        int total = 2 + friends * 3 / 2;
+        for (int i = 0; i < total; i++) {
+            userStorage.create(BenchmarkData.user(i));
+        }
+        for (int i = 0; i < friends; i++) {
+            userStorage.addFriend(1L, 3L + i);
+            userStorage.addFriend(2L, 3L + friends / 2 + i);
+        }
+    }
+
+    @Benchmark
+    public List<User> streamFilter() {
+        User user = userStorage.findById(1L).orElseThrow();
+        User otherUser = userStorage.findById(2L).orElseThrow();
+        return user.getFriends().stream()
+                .filter(otherUser.getFriends()::contains)
+                .map(id -> userStorage.findById(id).orElseThrow(() -> new NotFoundException("User with id " + id + " not found")))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<User> sortedIntersection() {
+        return userService.getCommonFriends(1L, 2L);
+    }
+}
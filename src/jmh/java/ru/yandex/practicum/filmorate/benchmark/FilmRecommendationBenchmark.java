@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Film recommendations over {@code films} films and {@code users} users with {@code likesPerUser} likes each,
+ * drawn with a skew towards low film ids so that some films are liked by far more users than others.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmRecommendationBenchmark {
+    @Param({"10000"})
+    private int films;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"20", "100"})
+    private int likesPerUser;
+
+    private UserService userService;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        userService = new UserService(userStorage, filmStorage, new UserValidator());
+        List<User> newUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            newUsers.add(BenchmarkData.user(i));
+        }
+        userStorage.createAll(newUsers);
+        List<Film> newFilms = new ArrayList<>(films);
+        for (int i = 0; i < films; i++) {
+            newFilms.add(BenchmarkData.film(i));
+        }
+        filmStorage.createAll(newFilms);
+        random = new Random(42);
+        Map<Long, LongIdSet> likes = new HashMap<>();
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                double skewed = Math.pow(random.nextDouble(), 2);
+                likes.computeIfAbsent(1L + (long) (skewed * films), id -> new LongIdSet()).add(userId);
+            }
+        }
+        filmStorage.addLikes(likes);
+    }
+
+    @Benchmark
+    public List<Film> recommendations() {
+        return userService.getFilmRecommendations(1L + random.nextInt(users), 10);
+    }
+}
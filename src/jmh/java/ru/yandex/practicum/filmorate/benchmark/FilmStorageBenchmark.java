@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write paths of {@link InMemoryFilmStorage}.
+ * {@code films} sets the catalog size; {@code hotFilms} limits how many films the threads write to,
+ * so {@code -t <threads> -p hotFilms=1} gives maximum contention. Running {@code addLike} with {@code -t 1} and
+ * {@code -t <cores>} shows how likes scale with threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Param({"1000", "100000"})
+    private int films;
+
+    @Param({"1", "64", "0"})
+    private int hotFilms;
+
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            filmStorage.create(BenchmarkData.film(i));
+        }
+    }
+
+    @Benchmark
+    public Film create() {
+        return filmStorage.create(BenchmarkData.film(ThreadLocalRandom.current().nextInt()));
+    }
+
+    @Benchmark
+    public Film update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Film film = BenchmarkData.film(random.nextInt());
+        film.setId(nextFilmId(random));
+        return filmStorage.update(film);
+    }
+
+    @Benchmark
+    public void addLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        filmStorage.addLike(nextFilmId(random), 1L + random.nextInt(1_000_000));
+    }
+
+    private long nextFilmId(ThreadLocalRandom random) {
+        int range = hotFilms <= 0 ? films : Math.min(hotFilms, films);
+        return 1L + random.nextInt(range);
+    }
+}
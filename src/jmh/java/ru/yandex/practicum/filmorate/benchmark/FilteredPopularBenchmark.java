@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top 10 films under a year and/or duration filter over {@code films} films released over 100 years with durations
+ * of 60-179 minutes: the storage's index-backed {@code findPopular(count, filter)} against {@code fullSort}, which
+ * filters and sorts the whole catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilteredPopularBenchmark {
+    private static final int COUNT = 10;
+    private static final Map<String, FilmFilter> FILTERS = Map.of(
+            "year", new FilmFilter(2000, null, null),
+            "longFilms", new FilmFilter(null, 90, null),
+            "narrowDuration", new FilmFilter(null, 100, 101),
+            "yearAndDuration", new FilmFilter(2000, 90, 120));
+
+    @Param({"100000"})
+    private int films;
+
+    @Param({"year", "longFilms", "narrowDuration", "yearAndDuration"})
+    private String filter;
+
+    private FilmFilter filmFilter;
+    private InMemoryFilmStorage filmStorage;
+
+    @Setup
+    public void setUp() {
+        filmFilter = FILTERS.get(filter);
+        filmStorage = new InMemoryFilmStorage();
+        Random random = new Random(films);
+        for (int i = 0; i < films; i++) {
+            Film film = BenchmarkData.film(i);
+            film.setReleaseDate(LocalDate.of(1925 + random.nextInt(100), 1 + random.nextInt(12), 1));
+            film.setDuration(60 + random.nextInt(120));
+            filmStorage.create(film);
+        }
+        for (int i = 0; i < films * 5; i++) {
+            long filmId = 1L + (long) (films * Math.pow(random.nextDouble(), 3));
+            filmStorage.addLike(filmId, 1L + random.nextInt(films));
+        }
+    }
+
+    @Benchmark
+    public List<Film> indexed() {
+        return filmStorage.findPopular(COUNT, filmFilter);
+    }
+
+    @Benchmark
+    public List<Film> fullSort() {
+        return filmStorage.findAll().stream()
+                .filter(filmFilter::matches)
+                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                        .thenComparing(Film::getId))
+                .limit(COUNT)
+                .toList();
+    }
+}
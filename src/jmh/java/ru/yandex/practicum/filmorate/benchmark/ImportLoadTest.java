@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Loads the same films and likes once with single POST /films and PUT /films/{id}/like/{userId} requests and once
+ * with the NDJSON import endpoints, and prints records per second for both.
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.main=ru.yandex.practicum.filmorate.benchmark.ImportLoadTest
+ * -Djmh.args="<concurrency> <records>"}.
+ */
+public class ImportLoadTest {
+    private static final int USERS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        List<String> values = Arrays.stream(args).filter(arg -> arg.matches("\\d+")).toList();
+        int concurrency = values.isEmpty() ? 64 : Integer.parseInt(values.get(0));
+        int records = values.size() < 2 ? 100_000 : Integer.parseInt(values.get(1));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0",
+                        "logging.level.org.zalando.logbook=WARN",
+                        "logging.level.ru.yandex.practicum.filmorate=WARN")
+                .run();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(executor)
+                     .build()) {
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            StringBuilder users = new StringBuilder();
+            for (int i = 0; i < USERS; i++) {
+                users.append(objectMapper.writeValueAsString(BenchmarkData.user(i))).append('\n');
+            }
+            send(client, ndjson(base + "/users/import", users.toString()));
+
+            long start = System.nanoTime();
+            fire(executor, client, concurrency, records, i -> HttpRequest.newBuilder(URI.create(base + "/films"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(BenchmarkData.film(i))))
+                    .build());
+            double singleFilms = records / ((System.nanoTime() - start) / 1e9);
+            start = System.nanoTime();
+            fire(executor, client, concurrency, records, i -> HttpRequest.newBuilder(
+                            URI.create(base + "/films/" + (1 + i) + "/like/" + (1 + i % USERS)))
+                    .PUT(HttpRequest.BodyPublishers.noBody())
+                    .build());
+            double singleLikes = records / ((System.nanoTime() - start) / 1e9);
+
+            StringBuilder films = new StringBuilder();
+            StringBuilder likes = new StringBuilder();
+            for (int i = 0; i < records; i++) {
+                films.append(objectMapper.writeValueAsString(BenchmarkData.film(i))).append('\n');
+                likes.append("{\"filmId\":").append(records + 1 + i)
+                        .append(",\"userId\":").append(1 + i % USERS).append("}\n");
+            }
+            start = System.nanoTime();
+            send(client, ndjson(base + "/films/import", films.toString()));
+            double importedFilms = records / ((System.nanoTime() - start) / 1e9);
+            start = System.nanoTime();
+            send(client, ndjson(base + "/films/likes/import", likes.toString()));
+            double importedLikes = records / ((System.nanoTime() - start) / 1e9);
+
+            System.out.printf("%-7s %14s %14s %8s%n", "records", "single rec/s", "import rec/s", "gain");
+            System.out.printf("%-7s %14.0f %14.0f %7.1fx%n", "films", singleFilms, importedFilms,
+                    importedFilms / singleFilms);
+            System.out.printf("%-7s %14.0f %14.0f %7.1fx%n", "likes", singleLikes, importedLikes,
+                    importedLikes / singleLikes);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static HttpRequest ndjson(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static void send(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300 || !response.body().contains("\"failed\":0")) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static void fire(ExecutorService executor, HttpClient client, int concurrency, int requests,
+                             RequestFactory factory) throws Exception {
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Future<?>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = factory.create(i);
+            inFlight.acquire();
+            futures.add(executor.submit(() -> {
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 300) {
+                        throw new IllegalStateException("HTTP " + response.statusCode());
+                    }
+                } finally {
+                    inFlight.release();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest create(int index) throws Exception;
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.Journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput of {@link InMemoryFilmStorage#addLike} with no journal, an asynchronous journal and a journal
+ * that waits for fsync. Run with {@code -t <threads>} to see how group commit shares one fsync between writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int FILMS = 10_000;
+
+    @Param({"none", "async", "sync"})
+    private String journal;
+
+    private Path dir;
+    private Journal filmJournal;
+    private InMemoryFilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (journal.equals("none")) {
+            filmStorage = new InMemoryFilmStorage();
+        } else {
+            dir = Files.createTempDirectory("journal-benchmark");
+            filmJournal = new Journal(dir, "films", journal.equals("sync"));
+            filmStorage = new InMemoryFilmStorage(filmJournal);
+            filmStorage.recover();
+        }
+        for (int i = 0; i < FILMS; i++) {
+            filmStorage.create(BenchmarkData.film(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (filmJournal != null) {
+            filmJournal.close();
+            delete(dir);
+        }
+    }
+
+    @Benchmark
+    public void addLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        filmStorage.addLike(1L + random.nextInt(FILMS), 1L + random.nextInt(1_000_000));
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
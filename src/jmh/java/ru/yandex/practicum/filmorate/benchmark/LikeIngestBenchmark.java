@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.Journal;
+import ru.yandex.practicum.filmorate.storage.QueuedLikeFilmStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Like throughput of the synchronous path against {@link QueuedLikeFilmStorage} over an in-memory storage with no
+ * journal and with an fsync journal. A rejected like is retried, so the queued score is what the single writer
+ * sustains rather than how fast the queue fills.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LikeIngestBenchmark {
+    private static final int FILMS = 10_000;
+
+    @Param({"none", "sync"})
+    private String journal;
+
+    @Param({"direct", "queued"})
+    private String ingest;
+
+    private Path dir;
+    private Journal filmJournal;
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryFilmStorage storage;
+        if (journal.equals("none")) {
+            storage = new InMemoryFilmStorage();
+        } else {
+            dir = Files.createTempDirectory("like-ingest-benchmark");
+            filmJournal = new Journal(dir, "films", true);
+            storage = new InMemoryFilmStorage(filmJournal);
+            storage.recover();
+        }
+        for (int i = 0; i < FILMS; i++) {
+            storage.create(BenchmarkData.film(i));
+        }
+        filmStorage = ingest.equals("direct")
+                ? storage
+                : new QueuedLikeFilmStorage(storage, 10_000, 1_000, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (filmStorage instanceof QueuedLikeFilmStorage queued) {
+            queued.close();
+        }
+        if (filmJournal != null) {
+            filmJournal.close();
+            JournalBenchmark.delete(dir);
+        }
+    }
+
+    @Benchmark
+    public void addLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = 1L + random.nextInt(FILMS);
+        long userId = 1L + random.nextInt(1_000_000);
+        while (true) {
+            try {
+                filmStorage.addLike(filmId, userId);
+                return;
+            } catch (TooManyRequestsException e) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * HTTP load test of like/friend requests against the application started with platform threads and then
+ * with virtual threads ({@code spring.threads.virtual.enabled}). Prints throughput and p50/p99 latency.
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.main=ru.yandex.practicum.filmorate.benchmark.LikeLoadTest
+ * -Djmh.args="<concurrency> <requests>"}; add {@code -Djdk.tracePinnedThreads=full} to the JVM to report pinning.
+ */
+public class LikeLoadTest {
+    private static final int FILMS = 1_000;
+    private static final int USERS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        List<String> values = Arrays.stream(args).filter(arg -> arg.matches("\\d+")).toList();
+        int concurrency = values.isEmpty() ? 1_000 : Integer.parseInt(values.get(0));
+        int requests = values.size() < 2 ? 200_000 : Integer.parseInt(values.get(1));
+
+        List<String> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            results.add(run(virtual, concurrency, requests));
+        }
+        System.out.printf("%-9s %11s %12s %10s %10s%n", "threads", "concurrency", "req/s", "p50 ms", "p99 ms");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(boolean virtual, int concurrency, int requests) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "logging.level.org.zalando.logbook=WARN",
+                        "logging.level.ru.yandex.practicum.filmorate=WARN")
+                .run();
+        try {
+            FilmStorage filmStorage = context.getBean(FilmStorage.class);
+            UserStorage userStorage = context.getBean(UserStorage.class);
+            for (int i = 0; i < FILMS; i++) {
+                filmStorage.create(BenchmarkData.film(i));
+            }
+            for (int i = 0; i < USERS; i++) {
+                userStorage.create(BenchmarkData.user(i));
+            }
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            fire(port, concurrency, requests / 10);
+            long start = System.nanoTime();
+            long[] latencies = fire(port, concurrency, requests);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            return String.format("%-9s %11d %12.0f %10.2f %10.2f", virtual ? "virtual" : "platform", concurrency,
+                    requests / seconds, latencies[latencies.length / 2] / 1e6,
+                    latencies[(int) (latencies.length * 0.99)] / 1e6);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long[] fire(int port, int concurrency, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        Semaphore inFlight = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(executor)
+                     .build()) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                int request = i;
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(nextRequest(port), HttpResponse.BodyHandlers.discarding());
+                        latencies[request] = System.nanoTime() - start;
+                        if (response.statusCode() >= 300) {
+                            throw new IllegalStateException("HTTP " + response.statusCode());
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return latencies;
+    }
+
+    private static HttpRequest nextRequest(int port) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = 1 + random.nextInt(USERS);
+        String path = random.nextBoolean()
+                ? "/films/" + (1 + random.nextInt(FILMS)) + "/like/" + userId
+                : "/users/" + userId + "/friends/" + (1 + random.nextInt(USERS));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+}
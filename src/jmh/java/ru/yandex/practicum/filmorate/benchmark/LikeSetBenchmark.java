@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build and lookup cost of {@link LongIdSet} against the boxed {@code Set<Long>} it replaced.
+ * Run with {@code -prof gc} to compare allocated bytes per built set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LikeSetBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private long[] ids;
+    private long[] probes;
+    private Set<Long> boxed;
+    private LongIdSet compact;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(size);
+        ids = random.longs(size, 1, 2L * size).toArray();
+        probes = random.longs(1_000, 1, 2L * size).toArray();
+        boxed = buildBoxed();
+        compact = buildCompact();
+    }
+
+    @Benchmark
+    public Set<Long> buildBoxed() {
+        Set<Long> set = new HashSet<>();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public LongIdSet buildCompact() {
+        LongIdSet set = new LongIdSet();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public int containsBoxed() {
+        int hits = 0;
+        for (long probe : probes) {
+            if (boxed.contains(probe)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int containsCompact() {
+        int hits = 0;
+        for (long probe : probes) {
+            if (compact.contains(probe)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Retained heap of one like/friend set per representation, measured with JOL.
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.main=ru.yandex.practicum.filmorate.benchmark.LikeSetFootprint}.
+ */
+public class LikeSetFootprint {
+    private static final int[] SIZES = {10, 64, 1_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s %14s %14s %10s%n", "ids", "HashSet", "CHM.keySet", "LongIdSet", "B/id");
+        for (int size : SIZES) {
+            long[] ids = new Random(size).longs(size, 1, 10L * size).distinct().toArray();
+            long hashSet = footprint(HashSet::new, ids);
+            long keySet = footprint(ConcurrentHashMap::newKeySet, ids);
+            long compact = GraphLayout.parseInstance(LongIdSet.of(ids)).totalSize();
+            System.out.printf("%10d %14d %14d %14d %10.1f%n", ids.length, hashSet, keySet, compact,
+                    (double) compact / ids.length);
+        }
+    }
+
+    private static long footprint(Supplier<Collection<Long>> factory, long[] ids) {
+        Collection<Long> set = factory.get();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return GraphLayout.parseInstance(set).totalSize();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FilmService#getPopularFilms(int)} over a catalog with skewed like counts.
+ * {@code writeLikes} adds a like before every read, to measure reads while the ranking changes
+ * (combine with {@code -t} for concurrent writers).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopularFilmsBenchmark {
+    @Param({"1000", "100000"})
+    private int films;
+
+    @Param({"10", "100"})
+    private int count;
+
+    @Param({"false", "true"})
+    private boolean writeLikes;
+
+    private InMemoryFilmStorage filmStorage;
+    private FilmService filmService;
+
+    @Setup
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        filmService = new FilmService(filmStorage, new InMemoryUserStorage(), new FilmValidator());
+        Random random = new Random(films);
+        for (int i = 0; i < films; i++) {
+            filmStorage.create(BenchmarkData.film(i));
+        }
+        for (int i = 0; i < films * 5; i++) {
+            long filmId = 1L + (long) (films * Math.pow(random.nextDouble(), 3));
+            filmStorage.addLike(filmId, 1L + random.nextInt(films));
+        }
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        if (writeLikes) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            filmStorage.addLike(1L + random.nextInt(films), 1L + random.nextInt(films));
+        }
+        return filmService.getPopularFilms(count);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend recommendations for user 1 in a graph of {@code users} users with {@code degree} random friends each,
+ * user 1 having {@code friends} of them. {@code boxed} is the straightforward {@code HashMap<Long, Integer>}
+ * count over the friends' {@code Set<Long>} for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecommendationBenchmark {
+    @Param({"100000"})
+    private int users;
+
+    @Param({"100"})
+    private int degree;
+
+    @Param({"1000", "5000"})
+    private int friends;
+
+    private InMemoryUserStorage userStorage;
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, new InMemoryFilmStorage(), new UserValidator());
+        List<User> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            batch.add(BenchmarkData.user(i));
+        }
+        userStorage.createAll(batch);
+        Random random = new Random(42);
+        Map<Long, LongIdSet> links = new HashMap<>();
+        for (long id = 2; id <= users; id++) {
+            LongIdSet friendIds = new LongIdSet();
+            for (int i = 0; i < degree / 2; i++) {
+                friendIds.add(2 + random.nextInt(users - 1));
+            }
+            friendIds.remove(id);
+            links.put(id, friendIds);
+        }
+        LongIdSet hub = new LongIdSet();
+        while (hub.size() < friends) {
+            hub.add(2 + random.nextInt(users - 1));
+        }
+        links.put(1L, hub);
+        userStorage.addFriends(links);
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> recommendations() {
+        return userService.getRecommendations(1L, 10);
+    }
+
+    @Benchmark
+    public List<Long> boxed() {
+        User user = userStorage.findById(1L).orElseThrow();
+        Map<Long, Integer> mutual = new HashMap<>();
+        for (Long friendId : user.getFriends()) {
+            for (Long candidate : userStorage.findById(friendId).orElseThrow().getFriends()) {
+                if (candidate != 1L && !user.getFriends().contains(candidate)) {
+                    mutual.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        return mutual.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.Journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full startup recovery of {@code films} films with {@code likes} likes each, either from a snapshot or by
+ * replaying the whole journal. See {@link ColdStartBenchmark} for the time to the first request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RecoveryBenchmark {
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"10"})
+    private int likes;
+
+    @Param({"snapshot", "journal"})
+    private String source;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("recovery-benchmark");
+        Journal journal = new Journal(dir, "films", false);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+        filmStorage.recover();
+        Random random = new Random(42);
+        for (int i = 0; i < films; i++) {
+            long id = filmStorage.create(BenchmarkData.film(i)).getId();
+            for (int j = 0; j < likes; j++) {
+                filmStorage.addLike(id, 1L + random.nextInt(1_000_000));
+            }
+        }
+        if (source.equals("snapshot")) {
+            filmStorage.snapshot();
+        }
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        JournalBenchmark.delete(dir);
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage recover() {
+        Journal journal = new Journal(dir, "films", false);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(journal);
+        filmStorage.recover();
+        filmStorage.awaitLoaded();
+        journal.close();
+        return filmStorage;
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InMemoryFilmStorage#search} for the top 10 over {@code films} films whose names and descriptions are drawn
+ * from a skewed vocabulary of 20 000 words, against {@code scan}, which lower-cases every film's text and checks
+ * it for the query words (substrings, so a little less work than word prefixes). Queries:
+ * {@code rare} is a word of a few hundred films, {@code common} the most frequent word, {@code prefix} its first
+ * two letters and {@code pair} two frequent words together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class SearchBenchmark {
+    private static final int WORDS = 20_000;
+    private static final int LIMIT = 10;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "sa", "to", "vi", "de", "bo", "gra", "shi"};
+
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"rare", "common", "prefix", "pair"})
+    private String query;
+
+    private InMemoryFilmStorage filmStorage;
+    private String text;
+    private String[] queryWords;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(films);
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int n = i; n > 0 || word.isEmpty(); n /= SYLLABLES.length) {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+            }
+            words[i] = word.toString();
+        }
+        filmStorage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            Film film = BenchmarkData.film(i);
+            film.setName(words(words, random, 2 + random.nextInt(2)));
+            film.setDescription(words(words, random, 8 + random.nextInt(5)));
+            filmStorage.create(film);
+        }
+        for (int i = 0; i < films * 2; i++) {
+            long filmId = 1L + (long) (films * Math.pow(random.nextDouble(), 3));
+            filmStorage.addLike(filmId, 1L + random.nextInt(films));
+        }
+        text = switch (query) {
+            case "rare" -> words[WORDS / 2];
+            case "common" -> words[0];
+            case "prefix" -> words[1].substring(0, 2);
+            default -> words[1] + " " + words[2];
+        };
+        queryWords = text.split(" ");
+    }
+
+    @Benchmark
+    public List<Film> search() {
+        return filmStorage.search(text, LIMIT);
+    }
+
+    @Benchmark
+    public List<Film> scan() {
+        return filmStorage.findAll().stream()
+                .filter(film -> {
+                    String filmText = (film.getName() + " " + film.getDescription()).toLowerCase(Locale.ROOT);
+                    for (String word : queryWords) {
+                        if (!filmText.contains(word)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                })
+                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                        .thenComparing(Film::getId))
+                .limit(LIMIT)
+                .toList();
+    }
+
+    private static String words(String[] words, Random random, int count) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                result.append(' ');
+            }
+            result.append(words[(int) (WORDS * Math.pow(random.nextDouble(), 3))]);
+        }
+        return result.toString();
+    }
+}
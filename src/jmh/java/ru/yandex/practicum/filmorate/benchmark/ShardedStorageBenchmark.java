@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.ShardedFilmStorage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InMemoryFilmStorage} ({@code shards=1}) against {@link ShardedFilmStorage}. Film ids are taken from the
+ * storage, so the same films are hit whatever the id layout. Run once per thread count, e.g.
+ * {@code -t 1}, {@code -t 8}, {@code -t 64}, to see how each scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedStorageBenchmark {
+    private static final int FILMS = 100_000;
+
+    @Param({"1", "16"})
+    private int shards;
+
+    private FilmStorage filmStorage;
+    private long[] filmIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = shards == 1 ? new InMemoryFilmStorage() : new ShardedFilmStorage(shards);
+        for (int i = 0; i < FILMS; i++) {
+            filmStorage.create(BenchmarkData.film(i));
+        }
+        filmIds = filmStorage.findAll().stream().mapToLong(Film::getId).toArray();
+    }
+
+    @Benchmark
+    public Film create() {
+        return filmStorage.create(BenchmarkData.film(ThreadLocalRandom.current().nextInt()));
+    }
+
+    @Benchmark
+    public void addLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        filmStorage.addLike(filmIds[random.nextInt(FILMS)], 1L + random.nextInt(1_000_000));
+    }
+
+    @Benchmark
+    public List<Film> findPopular() {
+        return filmStorage.findPopular(10);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of user create/update with the application logger at {@code level} (written to target/jmh-app.log).
+ * The {@code legacy*} methods add the statements the storage used to issue per request (a root logger
+ * {@code setLevel} and the step-by-step INFO lines) on top of the current code, as the "before" baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageLoggingBenchmark {
+    private static final org.slf4j.Logger LEGACY_LOG = LoggerFactory.getLogger(InMemoryUserStorage.class);
+
+    @Param({"INFO", "WARN"})
+    private String level;
+
+    private Logger appLogger;
+    private Level previousLevel;
+    private InMemoryUserStorage userStorage;
+    /**
+     * Numbers of created and updated users, so emails and logins never collide.
+     */
+    private final AtomicLong sequence = new AtomicLong(1_000);
+
+    @Setup
+    public void setUp() {
+        appLogger = (Logger) LoggerFactory.getLogger("ru.yandex.practicum.filmorate");
+        previousLevel = appLogger.getLevel();
+        appLogger.setLevel(Level.toLevel(level));
+        userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < 1_000; i++) {
+            userStorage.create(BenchmarkData.user(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        appLogger.setLevel(previousLevel);
+    }
+
+    @Benchmark
+    public User create() {
+        return userStorage.create(BenchmarkData.user(sequence.getAndIncrement()));
+    }
+
+    @Benchmark
+    public User legacyCreate() {
+        LEGACY_LOG.info("Проверка условий на создание пользователя");
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        LEGACY_LOG.info("Создаем нового пользователя!");
+        User user = userStorage.create(BenchmarkData.user(sequence.getAndIncrement()));
+        LEGACY_LOG.info("Новый пользователь добавлен!");
+        return user;
+    }
+
+    @Benchmark
+    public User update() {
+        User user = BenchmarkData.user(sequence.getAndIncrement());
+        user.setId(1L + ThreadLocalRandom.current().nextInt(1_000));
+        return userStorage.update(user);
+    }
+
+    @Benchmark
+    public User legacyUpdate() {
+        User user = BenchmarkData.user(sequence.getAndIncrement());
+        user.setId(1L + ThreadLocalRandom.current().nextInt(1_000));
+        LEGACY_LOG.info("Проверка условий на обновление пользователя");
+        LEGACY_LOG.info("Проверка наличия пользователя");
+        LEGACY_LOG.info("Проверка и обновление email");
+        LEGACY_LOG.info("Проверка и обновление login");
+        LEGACY_LOG.info("Проверка и обновление name");
+        LEGACY_LOG.info("Проверка и обновление birthday");
+        User updated = userStorage.update(user);
+        LEGACY_LOG.info("Пользователь обновлен!");
+        return updated;
+    }
+}
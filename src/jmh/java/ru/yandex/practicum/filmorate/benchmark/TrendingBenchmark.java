@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.TrendingIndex;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trending films over {@code window} from a {@link TrendingIndex} fed with {@code likes} like events spread over a
+ * week, against {@code rescan}, which counts the timestamped events of the window on every read.
+ * {@code like} adds a like of a new user while the clock moves one second per call, so the windows keep rolling;
+ * {@code likeAndTop} reads after every like, so each read applies one change to the ranking. Run with {@code -t 8}
+ * to see likes of different films proceed on different stripes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrendingBenchmark {
+    private static final int FILMS = 100_000;
+    private static final int COUNT = 10;
+
+    @Param({"1000000"})
+    private int likes;
+
+    @Param({"1h", "7d"})
+    private String window;
+
+    private TrendingWindow trendingWindow;
+    private SteppingClock clock;
+    private TrendingIndex index;
+    private long[] filmIds;
+    private long[] likedAt;
+    private final AtomicLong nextUser = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        trendingWindow = TrendingWindow.of(window).orElseThrow();
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        long weekMillis = Duration.ofDays(7).toMillis();
+        clock = new SteppingClock(start.toEpochMilli() + weekMillis);
+        index = new TrendingIndex(clock);
+        filmIds = new long[likes];
+        likedAt = new long[likes];
+        Random random = new Random(likes);
+        for (int i = 0; i < likes; i++) {
+            filmIds[i] = 1L + (long) (FILMS * Math.pow(random.nextDouble(), 3));
+            likedAt[i] = start.toEpochMilli() + weekMillis * i / likes;
+            index.like(filmIds[i], nextUser.incrementAndGet(), likedAt[i]);
+        }
+    }
+
+    @Benchmark
+    public List<TrendingIndex.Entry> top() {
+        return index.top(trendingWindow, COUNT);
+    }
+
+    @Benchmark
+    public List<TrendingIndex.Entry> rescan() {
+        long since = clock.millis() - trendingWindow.length().toMillis();
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < likes; i++) {
+            if (likedAt[i] >= since) {
+                counts.merge(filmIds[i], 1, Integer::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new TrendingIndex.Entry(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingInt(TrendingIndex.Entry::likes).reversed()
+                        .thenComparingLong(TrendingIndex.Entry::filmId))
+                .limit(COUNT)
+                .toList();
+    }
+
+    @Benchmark
+    public void like() {
+        index.like(1L + ThreadLocalRandom.current().nextInt(FILMS), nextUser.incrementAndGet(), clock.step());
+    }
+
+    @Benchmark
+    public List<TrendingIndex.Entry> likeAndTop() {
+        index.like(1L + ThreadLocalRandom.current().nextInt(FILMS), nextUser.incrementAndGet(), clock.step());
+        return index.top(trendingWindow, COUNT);
+    }
+
+    private static final class SteppingClock extends Clock {
+        private volatile long millis;
+
+        SteppingClock(long millis) {
+            this.millis = millis;
+        }
+
+        long step() {
+            millis += 1_000;
+            return millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
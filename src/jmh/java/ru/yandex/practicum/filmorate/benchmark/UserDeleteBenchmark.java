@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deleting a user with {@code links} friends and as many likes from a catalog of {@code size} users and films.
+ * Each operation creates the user with its friends and likes and deletes it again: {@code cascade} through the
+ * user's friend set and the user-to-films index, {@code scan} after first looking for the user's id in every
+ * friend set and like set, as a cleanup without reverse indexes has to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDeleteBenchmark {
+    @Param({"100000"})
+    private int size;
+
+    @Param({"20"})
+    private int links;
+
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+    private UserService userService;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage();
+        userService = new UserService(userStorage, filmStorage, new UserValidator());
+        for (int i = 0; i < size; i++) {
+            userStorage.create(BenchmarkData.user(i));
+            filmStorage.create(BenchmarkData.film(i));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size * 5; i++) {
+            long userId = 1L + random.nextInt(size);
+            long friendId = 1L + random.nextInt(size);
+            if (userId != friendId) {
+                userStorage.addFriend(userId, friendId);
+            }
+            filmStorage.addLike(1L + random.nextInt(size), userId);
+        }
+        next = size;
+    }
+
+    @Benchmark
+    public long cascade() {
+        long id = createLinkedUser();
+        userService.delete(id);
+        return id;
+    }
+
+    @Benchmark
+    public long scan() {
+        long id = createLinkedUser();
+        long found = 0;
+        for (User user : userStorage.findAll()) {
+            if (user.getFriends().contains(id)) {
+                found++;
+            }
+        }
+        for (Film film : filmStorage.findAll()) {
+            if (film.getLikes().contains(id)) {
+                found++;
+            }
+        }
+        userService.delete(id);
+        return found;
+    }
+
+    private long createLinkedUser() {
+        long id = userStorage.create(BenchmarkData.user(next++)).getId();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < links; i++) {
+            userStorage.addFriend(id, 1L + random.nextInt(size));
+            filmStorage.addLike(1L + random.nextInt(size), id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User by login over {@code users} users: the storage's login index against {@code scan}, which compares the login
+ * of every user as a uniqueness check without the index would. {@code create} is the cost of a write that claims
+ * a new email and login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserLookupBenchmark {
+    @Param({"1000000"})
+    private int users;
+
+    private InMemoryUserStorage userStorage;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < users; i++) {
+            userStorage.create(BenchmarkData.user(i));
+        }
+        next = users;
+    }
+
+    @Benchmark
+    public Optional<User> findByLogin() {
+        return userStorage.findByLogin("USER" + ThreadLocalRandom.current().nextInt(users));
+    }
+
+    @Benchmark
+    public Optional<User> scan() {
+        String login = "USER" + ThreadLocalRandom.current().nextInt(users);
+        return userStorage.findAll().stream()
+                .filter(user -> user.getLogin().equalsIgnoreCase(login))
+                .findFirst();
+    }
+
+    @Benchmark
+    public User create() {
+        return userStorage.create(BenchmarkData.user(next++));
+    }
+}
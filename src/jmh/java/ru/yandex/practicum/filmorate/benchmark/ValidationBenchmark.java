@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request validation cost of a valid film and user. The {@code legacy*} methods repeat what a create request
+ * used to do: {@code @Valid} Bean Validation of the body followed by the hand-written storage checks that built
+ * {@code LocalDate.of(1895, 12, 28)} and called {@code LocalDate.now()} on every call.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private ValidatorFactory factory;
+    private jakarta.validation.Validator beanValidator;
+    private FilmValidator filmValidator;
+    private UserValidator userValidator;
+    private Film film;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        beanValidator = factory.getValidator();
+        filmValidator = new FilmValidator();
+        userValidator = new UserValidator();
+        film = BenchmarkData.film(1);
+        user = BenchmarkData.user(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public List<?> film() {
+        return filmValidator.validateNew(film);
+    }
+
+    @Benchmark
+    public boolean legacyFilm() {
+        if (!beanValidator.validate(film).isEmpty()) {
+            return false;
+        }
+        return film.getName() != null && !film.getName().isBlank()
+                && film.getDescription() != null && film.getDescription().length() <= 200
+                && film.getReleaseDate() != null && !film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))
+                && film.getDuration() > 0;
+    }
+
+    @Benchmark
+    public List<?> user() {
+        return userValidator.validateNew(user);
+    }
+
+    @Benchmark
+    public boolean legacyUser() {
+        if (!beanValidator.validate(user).isEmpty()) {
+            return false;
+        }
+        return user.getEmail() != null && !user.getEmail().isBlank() && user.getEmail().contains("@")
+                && user.getLogin() != null && !user.getLogin().isBlank()
+                && user.getBirthday() != null && !user.getBirthday().isAfter(LocalDate.now());
+    }
+}
@@ -1,13 +1,29 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.yandex.practicum.filmorate.validation.Violation;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class ErrorResponse {
     String error;
+    List<Violation> violations;
 
     public ErrorResponse(String error) {
+        this(error, List.of());
+    }
+
+    public ErrorResponse(String error, List<Violation> violations) {
         this.error = error;
+        this.violations = violations;
     }
 
     public String getError() {
         return error;
     }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
 }
@@ -1,11 +1,11 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.Collection;
@@ -20,19 +20,26 @@ public class FilmController {
     private final FilmService filmService;
 
     @GetMapping
-    public Collection<Film> findAll() {
-        log.debug("Getting all films");
-        return filmService.findAll();
+    public ResponseEntity<Collection<Film>> findAll(@RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.debug("Getting all films");
+            return ResponseEntity.ok(filmService.findAll());
+        }
+        int pageSize = limit == null ? Pages.DEFAULT_PAGE_SIZE : limit;
+        log.debug("Getting films page after id: {}, limit: {}", after, pageSize);
+        List<Film> page = filmService.findPage(after, pageSize);
+        return Pages.response(page, pageSize, Film::getId);
     }
 
     @PostMapping
-    public Film create(@Valid @RequestBody Film film) {
+    public Film create(@RequestBody Film film) {
         log.debug("Creating film: {}", film);
         return filmService.create(film);
     }
 
     @PutMapping
-    public Film update(@Valid @RequestBody Film newFilm) {
+    public Film update(@RequestBody Film newFilm) {
         log.debug("Updating film: {}", newFilm);
         return filmService.update(newFilm);
     }
@@ -58,8 +65,24 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        log.debug("Getting popular films, count: {}", count);
-        return filmService.getPopularFilms(count);
+    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count,
+                                      @RequestParam(required = false) Integer year,
+                                      @RequestParam(required = false) Integer minDuration,
+                                      @RequestParam(required = false) Integer maxDuration) {
+        log.debug("Getting popular films, count: {}, year: {}, duration: {}..{}", count, year, minDuration, maxDuration);
+        return filmService.getPopularFilms(count, new FilmFilter(year, minDuration, maxDuration));
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Searching films, query: {}, limit: {}", q, limit);
+        return filmService.search(q, limit);
+    }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @RequestParam(defaultValue = "10") int count) {
+        log.debug("Getting trending films, window: {}, count: {}", window, count);
+        return filmService.getTrendingFilms(window, count);
     }
 }
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.ImportReport;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Bulk import endpoints. The body is a JSON array or NDJSON and is read from the request stream record by record;
+ * the response lists the records that were rejected.
+ */
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+public class ImportController {
+    private final ImportService importService;
+
+    @PostMapping(value = "/films/import", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportReport importFilms(InputStream body) throws IOException {
+        log.debug("Importing films");
+        return importService.importFilms(body);
+    }
+
+    @PostMapping(value = "/users/import", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportReport importUsers(InputStream body) throws IOException {
+        log.debug("Importing users");
+        return importService.importUsers(body);
+    }
+
+    @PostMapping(value = "/films/likes/import", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportReport importLikes(InputStream body) throws IOException {
+        log.debug("Importing likes");
+        return importService.importLikes(body);
+    }
+
+    @PostMapping(value = "/users/friends/import", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportReport importFriends(InputStream body) throws IOException {
+        log.debug("Importing friendships");
+        return importService.importFriends(body);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination helpers: a full page carries the id to pass as {@code after} for the next one.
+ */
+final class Pages {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+
+    private Pages() {
+    }
+
+    static <T> ResponseEntity<Collection<T>> response(List<T> page, int pageSize, Function<T, Long> idGetter) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            builder.header(NEXT_AFTER_HEADER, String.valueOf(idGetter.apply(page.getLast())));
+        }
+        return builder.body(page);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+/**
+ * NDJSON variants of GET /films and GET /users, chosen with {@code Accept: application/x-ndjson}.
+ * Records are written to the response one by one while iterating the storage, without building a list.
+ */
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+public class StreamingController {
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(value = "/films", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms(@RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit) {
+        log.debug("Streaming films after id: {}, limit: {}", after, limit);
+        Iterable<?> films = after == null && limit == null
+                ? filmService.findAll()
+                : filmService.findPage(after, limit == null ? Pages.DEFAULT_PAGE_SIZE : limit);
+        return ndjson(films);
+    }
+
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit) {
+        log.debug("Streaming users after id: {}, limit: {}", after, limit);
+        Iterable<?> users = after == null && limit == null
+                ? userService.findAll()
+                : userService.findPage(after, limit == null ? Pages.DEFAULT_PAGE_SIZE : limit);
+        return ndjson(users);
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(Iterable<?> records) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                for (Object record : records) {
+                    objectMapper.writeValue(generator, record);
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -1,16 +1,16 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @Slf4j
@@ -21,23 +21,42 @@ public class UserController {
 
 
     @GetMapping
-    public Collection<User> findAll() {
-        log.debug("Getting all users");
-        return userService.findAll();
+    public ResponseEntity<Collection<User>> findAll(@RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.debug("Getting all users");
+            return ResponseEntity.ok(userService.findAll());
+        }
+        int pageSize = limit == null ? Pages.DEFAULT_PAGE_SIZE : limit;
+        log.debug("Getting users page after id: {}, limit: {}", after, pageSize);
+        List<User> page = userService.findPage(after, pageSize);
+        return Pages.response(page, pageSize, User::getId);
     }
 
     @PostMapping
-    public User create(@Valid @RequestBody User user) {
+    public User create(@RequestBody User user) {
         log.debug("Creating user: {}", user);
         return userService.create(user);
     }
 
     @PutMapping
-    public User update(@Valid @RequestBody User newUser) {
+    public User update(@RequestBody User newUser) {
         log.debug("Updating user: {}", newUser);
         return userService.update(newUser);
     }
 
+    @GetMapping("/by-login/{login}")
+    public User findByLogin(@PathVariable String login) {
+        log.debug("Getting user by login: {}", login);
+        return userService.findByLogin(login);
+    }
+
+    @GetMapping("/by-email")
+    public User findByEmail(@RequestParam String email) {
+        log.debug("Getting user by email: {}", email);
+        return userService.findByEmail(email);
+    }
+
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
         log.debug("Deleting user with id={}", id);
@@ -59,11 +78,7 @@ public class UserController {
     @GetMapping("/{id}/friends")
     public List<User> getFriends(@PathVariable Long id) {
         log.debug("Getting friends for user with id: {}", id);
-        User user = userService.findById(id)
-                .orElseThrow(() -> new NotFoundException("User with id " + id + " not found"));
-        return user.getFriends().stream()
-                .map(userId -> userService.findById(userId).orElseThrow(() -> new NotFoundException("User with id " + userId + " not found")))
-                .collect(Collectors.toList());
+        return userService.getFriends(id);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
@@ -71,4 +86,17 @@ public class UserController {
         log.debug("Getting common friends for user with id: {} and user with id: {}", id, otherId);
         return userService.getCommonFriends(id, otherId);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}/recommendations")
+    public List<FriendRecommendation> getRecommendations(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Getting friend recommendations for user with id: {}, limit: {}", id, limit);
+        return userService.getRecommendations(id, limit);
+    }
+
+    @GetMapping("/{id}/films/recommended")
+    public List<Film> getFilmRecommendations(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Getting film recommendations for user with id: {}, limit: {}", id, limit);
+        return userService.getFilmRecommendations(id, limit);
+    }
+}
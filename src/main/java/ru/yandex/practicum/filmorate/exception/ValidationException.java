@@ -1,7 +1,24 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import ru.yandex.practicum.filmorate.validation.Violation;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class ValidationException extends RuntimeException {
+    private final List<Violation> violations;
+
     public ValidationException(String message) {
         super(message);
+        this.violations = List.of();
+    }
+
+    public ValidationException(List<Violation> violations) {
+        super(violations.stream().map(Violation::message).collect(Collectors.joining("; ")));
+        this.violations = List.copyOf(violations);
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
     }
 }
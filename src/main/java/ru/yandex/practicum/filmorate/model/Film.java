@@ -6,8 +6,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Film.
@@ -24,5 +22,5 @@ public class Film {
     private LocalDate releaseDate;
     private int duration;
     @Builder.Default
-    private Set<Long> likes = new HashSet<>();
+    private LongIdSet likes = new LongIdSet();
 }
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Restriction of a film list by release year and duration range (inclusive); null fields do not restrict.
+ */
+public record FilmFilter(Integer year, Integer minDuration, Integer maxDuration) {
+    public static final FilmFilter NONE = new FilmFilter(null, null, null);
+
+    public boolean isEmpty() {
+        return year == null && minDuration == null && maxDuration == null;
+    }
+
+    public boolean matches(Film film) {
+        if (year != null && (film.getReleaseDate() == null || film.getReleaseDate().getYear() != year)) {
+            return false;
+        }
+        return (minDuration == null || film.getDuration() >= minDuration)
+                && (maxDuration == null || film.getDuration() <= maxDuration);
+    }
+}
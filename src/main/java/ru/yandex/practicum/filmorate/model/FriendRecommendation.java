@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Second-degree contact suggested as a friend, with the number of friends they share with the user.
+ */
+public record FriendRecommendation(User user, int mutualFriends) {
+}
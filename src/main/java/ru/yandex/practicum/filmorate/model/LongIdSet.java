@@ -0,0 +1,409 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Set of entity ids stored as primitive longs.
+ * Small sets are a sorted {@code long[]}; above {@link #SMALL_LIMIT} elements the set switches to an
+ * open-addressing hash table with linear probing. Iteration always yields ids in ascending order,
+ * so the set serializes to the same JSON array as before. Safe for concurrent readers and writers.
+ */
+public class LongIdSet extends AbstractSet<Long> {
+    static final int SMALL_LIMIT = 64;
+    private static final long EMPTY = 0L;
+    private static final long[] NO_VALUES = new long[0];
+
+    private final StampedLock lock = new StampedLock();
+    private long[] values = NO_VALUES;
+    private boolean hashed;
+    private boolean containsEmpty;
+    private int size;
+
+    public LongIdSet() {
+    }
+
+    public static LongIdSet of(long... ids) {
+        LongIdSet set = new LongIdSet();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    public static LongIdSet copyOf(Collection<Long> ids) {
+        if (ids instanceof LongIdSet source) {
+            return of(source.toSortedArray());
+        }
+        LongIdSet set = new LongIdSet();
+        if (ids != null) {
+            for (Long id : ids) {
+                set.add(id.longValue());
+            }
+        }
+        return set;
+    }
+
+    public boolean add(long id) {
+        long stamp = lock.writeLock();
+        try {
+            return hashed ? hashAdd(id) : sortedAdd(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            return hashed ? hashRemove(id) : sortedRemove(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean contains(long id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                boolean result = find(id);
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException ignore) {
+                // raced with a resize, retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Ids present in both sets, in ascending order. Two small (sorted) sets are merged; otherwise the
+     * smaller set is probed against the larger one and only the matches are sorted.
+     */
+    public static long[] intersect(LongIdSet first, LongIdSet second) {
+        LongIdSet smaller = first.size() <= second.size() ? first : second;
+        LongIdSet larger = smaller == first ? second : first;
+        if (larger.size() <= SMALL_LIMIT) {
+            return merge(smaller.toSortedArray(), larger.toSortedArray());
+        }
+        long[] candidates = smaller.snapshot(false);
+        long[] result = new long[candidates.length];
+        int count = 0;
+        for (long id : candidates) {
+            if (larger.contains(id)) {
+                result[count++] = id;
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the ids in no particular order; skips the sort of a hashed set.
+     */
+    public long[] toIdArray() {
+        return snapshot(false);
+    }
+
+    /**
+     * Returns a snapshot of the ids in ascending order.
+     */
+    public long[] toSortedArray() {
+        return snapshot(true);
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int result = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(Long id) {
+        return add(id.longValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long id && remove(id.longValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && contains(id.longValue());
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            values = NO_VALUES;
+            hashed = false;
+            containsEmpty = false;
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] snapshot = toSortedArray();
+        return new Iterator<>() {
+            private int next;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Long next() {
+                if (next >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                removable = true;
+                return snapshot[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                removable = false;
+                LongIdSet.this.remove(snapshot[next - 1]);
+            }
+        };
+    }
+
+    private long[] snapshot(boolean sorted) {
+        long stamp = lock.readLock();
+        try {
+            if (!hashed) {
+                return Arrays.copyOf(values, size);
+            }
+            long[] result = new long[size];
+            int i = 0;
+            if (containsEmpty) {
+                result[i++] = EMPTY;
+            }
+            for (long value : values) {
+                if (value != EMPTY) {
+                    result[i++] = value;
+                }
+            }
+            if (sorted) {
+                Arrays.sort(result);
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static long[] merge(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private boolean sortedAdd(long id) {
+        int position = Arrays.binarySearch(values, 0, size, id);
+        if (position >= 0) {
+            return false;
+        }
+        if (size == SMALL_LIMIT) {
+            toHashed();
+            return hashAdd(id);
+        }
+        int insertAt = -position - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.min(SMALL_LIMIT, Math.max(4, size + (size >> 1))));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    private boolean sortedRemove(long id) {
+        int position = Arrays.binarySearch(values, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(values, position + 1, values, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    private void toHashed() {
+        long[] sorted = values;
+        int count = size;
+        values = new long[tableSizeFor(count + 1)];
+        hashed = true;
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            hashAdd(sorted[i]);
+        }
+    }
+
+    private void toSorted() {
+        long[] table = values;
+        long[] sorted = new long[SMALL_LIMIT];
+        int count = 0;
+        if (containsEmpty) {
+            sorted[count++] = EMPTY;
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                sorted[count++] = value;
+            }
+        }
+        Arrays.sort(sorted, 0, count);
+        values = sorted;
+        hashed = false;
+        containsEmpty = false;
+        size = count;
+    }
+
+    private boolean hashAdd(long id) {
+        if (id == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int mask = values.length - 1;
+        int slot = slot(id, mask);
+        while (values[slot] != EMPTY) {
+            if (values[slot] == id) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        values[slot] = id;
+        size++;
+        if (size * 4L > values.length * 3L) {
+            rehash(values.length << 1);
+        }
+        return true;
+    }
+
+    private boolean hashRemove(long id) {
+        if (id == EMPTY) {
+            if (!containsEmpty) {
+                return false;
+            }
+            containsEmpty = false;
+        } else {
+            int mask = values.length - 1;
+            int slot = slot(id, mask);
+            while (values[slot] != id) {
+                if (values[slot] == EMPTY) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            shiftBack(slot, mask);
+        }
+        size--;
+        if (size <= SMALL_LIMIT / 2) {
+            toSorted();
+        }
+        return true;
+    }
+
+    private void shiftBack(int freed, int mask) {
+        int gap = freed;
+        int slot = (gap + 1) & mask;
+        while (values[slot] != EMPTY) {
+            int home = slot(values[slot], mask);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        values[gap] = EMPTY;
+    }
+
+    private boolean find(long id) {
+        long[] table = values;
+        if (!hashed) {
+            return Arrays.binarySearch(table, 0, Math.min(size, table.length), id) >= 0;
+        }
+        if (id == EMPTY) {
+            return containsEmpty;
+        }
+        int mask = table.length - 1;
+        int slot = slot(id, mask);
+        for (int probes = 0; probes < table.length && table[slot] != EMPTY; probes++) {
+            if (table[slot] == id) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = values;
+        values = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int slot = slot(value, mask);
+                while (values[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                values[slot] = value;
+            }
+        }
+    }
+
+    private static int slot(long id, int mask) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int count) {
+        return Integer.highestOneBit(Math.max(2, count * 2 - 1)) << 1;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Sliding window of trending films. Likes are counted in buckets of {@link #bucket()}, so the window moves
+ * forward one bucket at a time.
+ */
+public enum TrendingWindow {
+    HOUR("1h", Duration.ofHours(1), Duration.ofMinutes(1)),
+    DAY("24h", Duration.ofDays(1), Duration.ofMinutes(15)),
+    WEEK("7d", Duration.ofDays(7), Duration.ofHours(1));
+
+    private final String code;
+    private final Duration length;
+    private final Duration bucket;
+
+    TrendingWindow(String code, Duration length, Duration bucket) {
+        this.code = code;
+        this.length = length;
+        this.bucket = bucket;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public Duration length() {
+        return length;
+    }
+
+    public Duration bucket() {
+        return bucket;
+    }
+
+    public int buckets() {
+        return (int) length.dividedBy(bucket);
+    }
+
+    /**
+     * Start of the window ending at {@code millis}, in epoch milliseconds: the start of its oldest bucket.
+     */
+    public long start(long millis) {
+        long bucketMillis = bucket.toMillis();
+        return (Math.floorDiv(millis, bucketMillis) - buckets() + 1) * bucketMillis;
+    }
+
+    public static Optional<TrendingWindow> of(String code) {
+        for (TrendingWindow window : values()) {
+            if (window.code.equals(code)) {
+                return Optional.of(window);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -1,57 +1,64 @@
 package ru.yandex.practicum.filmorate.service;
 
-import jakarta.validation.Valid;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestBody;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
 
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
+@Timed("filmorate.service")
 @Slf4j
 @RequiredArgsConstructor
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final FilmValidator filmValidator;
 
     public Collection<Film> findAll() {
         log.debug("Getting all films");
         return filmStorage.findAll();
     }
 
-    public Film create(@Valid @RequestBody Film film) {
+    public List<Film> findPage(Long after, int limit) {
+        log.debug("Getting films page: after={}, limit={}", after, limit);
+        PageSize.check(limit);
+        return filmStorage.findPage(after, limit);
+    }
+
+    public Film create(Film film) {
         log.debug("Creating film: {}", film);
+        filmValidator.checkNew(film);
         return filmStorage.create(film);
     }
 
-    public Film update(@Valid @RequestBody Film newFilm) {
+    public Film update(Film newFilm) {
         log.debug("Updating film: {}", newFilm);
+        filmValidator.checkChanges(newFilm);
         return filmStorage.update(newFilm);
     }
 
-    public void delete(@PathVariable Long id) {
+    public void delete(Long id) {
         log.debug("Deleting film with id={}", id);
         filmStorage.delete(id);
     }
 
     public void addLike(Long filmId, Long userId) {
         log.debug("Adding like: filmId={}, userId={}", filmId, userId);
-        Film film = filmStorage.findById(filmId)
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + filmId + " не найден"));
         User user = userStorage.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        film.getLikes().add(userId);
-        filmStorage.update(film);
+        filmStorage.addLike(filmId, user.getId());
         log.debug("Like added: filmId={}, userId={}", filmId, userId);
     }
 
@@ -61,19 +68,45 @@ public class FilmService {
                 .orElseThrow(() -> new NotFoundException("Фильм с id = " + filmId + " не найден"));
         User user = userStorage.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        film.getLikes().remove(userId);
-        filmStorage.update(film);
+        if (film.getLikes().contains(user.getId())) {
+            filmStorage.removeLike(film.getId(), user.getId());
+        }
         log.debug("Like removed: filmId={}, userId={}", filmId, userId);
     }
 
 
     public List<Film> getPopularFilms(int count) {
         log.debug("Getting top films, count={}", count);
-        List<Film> topFilms = filmStorage.findAll().stream()
-                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
-        log.debug("Found top films: count={}, topFilms={}", count, topFilms);
+        List<Film> topFilms = filmStorage.findPopular(count);
+        log.debug("Found top films: count={}, found={}", count, topFilms.size());
         return topFilms;
     }
+
+    public List<Film> getPopularFilms(int count, FilmFilter filter) {
+        log.debug("Getting top films, count={}, filter={}", count, filter);
+        if (filter.minDuration() != null && filter.maxDuration() != null
+                && filter.minDuration() > filter.maxDuration()) {
+            throw new ValidationException("Минимальная продолжительность не может быть больше максимальной");
+        }
+        if (filter.isEmpty()) {
+            return getPopularFilms(count);
+        }
+        return filmStorage.findPopular(count, filter);
+    }
+
+    public List<Film> search(String query, int limit) {
+        log.debug("Searching films: query={}, limit={}", query, limit);
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым");
+        }
+        PageSize.check(limit);
+        return filmStorage.search(query, limit);
+    }
+
+    public List<Film> getTrendingFilms(String window, int count) {
+        log.debug("Getting trending films, window={}, count={}", window, count);
+        TrendingWindow trendingWindow = TrendingWindow.of(window)
+                .orElseThrow(() -> new ValidationException("Окно должно быть одним из: 1h, 24h, 7d"));
+        return filmStorage.findTrending(trendingWindow, count);
+    }
 }
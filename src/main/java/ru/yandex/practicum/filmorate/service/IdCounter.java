@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+
+/**
+ * Occurrence counts of long ids in an open-addressing table with linear probing, so counting friends of friends
+ * boxes nothing. A slot is free while its count is zero; an excluded id keeps its slot with a negative count.
+ */
+final class IdCounter {
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    IdCounter(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    void increment(long id) {
+        add(id, 1);
+    }
+
+    /**
+     * Adds a positive {@code delta} to the count of {@code id}.
+     */
+    void add(long id, int delta) {
+        int slot = slot(id);
+        while (counts[slot] != 0 && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        boolean added = counts[slot] == 0;
+        counts[slot] += delta;
+        if (added) {
+            keys[slot] = id;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+    }
+
+    /**
+     * Number of distinct ids counted.
+     */
+    int size() {
+        return size;
+    }
+
+    int get(long id) {
+        int slot = find(id);
+        return slot < 0 ? 0 : Math.max(0, counts[slot]);
+    }
+
+    /**
+     * Leaves {@code id} out of {@link #top}.
+     */
+    void exclude(long id) {
+        int slot = find(id);
+        if (slot >= 0 && counts[slot] > 0) {
+            counts[slot] = -counts[slot];
+        }
+    }
+
+    /**
+     * Up to {@code limit} ids by count descending and then by id. A histogram of the counts gives the lowest count
+     * that still makes the cut, so only the ids at or above it are ordered: sorted by id, then placed into their
+     * count's range of the result by a stable counting sort, all on primitive arrays.
+     */
+    long[] top(int limit) {
+        int maxCount = 0;
+        for (int count : counts) {
+            maxCount = Math.max(maxCount, count);
+        }
+        if (maxCount == 0 || limit <= 0) {
+            return new long[0];
+        }
+        int[] histogram = new int[maxCount + 1];
+        for (int count : counts) {
+            if (count > 0) {
+                histogram[count]++;
+            }
+        }
+        int threshold = maxCount;
+        int selected = 0;
+        while (threshold > 1 && selected + histogram[threshold] < limit) {
+            selected += histogram[threshold--];
+        }
+        long[] candidates = new long[selected + histogram[threshold]];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (counts[slot] >= threshold) {
+                candidates[n++] = keys[slot];
+            }
+        }
+        Arrays.sort(candidates, 0, n);
+        int[] next = new int[maxCount + 1];
+        int offset = 0;
+        for (int count = maxCount; count >= threshold; count--) {
+            next[count] = offset;
+            offset += histogram[count];
+        }
+        long[] ranked = new long[n];
+        for (int i = 0; i < n; i++) {
+            ranked[next[get(candidates[i])]++] = candidates[i];
+        }
+        return n > limit ? Arrays.copyOf(ranked, limit) : ranked;
+    }
+
+    private int find(long id) {
+        int slot = slot(id);
+        while (counts[slot] != 0) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (counts[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many records were written and why the others were rejected. Only the first
+ * {@link #MAX_ERRORS} rejections are listed, {@code failed} counts all of them. {@code fatalError} is set when the
+ * body stops being valid JSON: the import ends at that record and everything before it has been handled, so the
+ * rest can be sent again starting from its index.
+ */
+@Getter
+public class ImportReport {
+    public static final int MAX_ERRORS = 1000;
+
+    private long imported;
+    private long failed;
+    private final List<RecordError> errors = new ArrayList<>();
+    private RecordError fatalError;
+
+    void imported(int count) {
+        imported += count;
+    }
+
+    void failed(int index, String error) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RecordError(index, error));
+        }
+    }
+
+    void stopped(int index, String error) {
+        fatalError = new RecordError(index, error);
+    }
+
+    /**
+     * Rejected record; {@code index} is its zero-based position in the request body.
+     */
+    public record RecordError(int index, String error) {
+    }
+}
@@ -0,0 +1,253 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of films, users, likes and friendships from a JSON array or NDJSON body. Records are parsed one by
+ * one with the streaming parser, checked individually and written to storage in chunks of {@link #CHUNK_SIZE}.
+ * Malformed JSON ends the import: the records before it are still written and the report names the broken one.
+ */
+@Service
+@Timed("filmorate.service")
+@Slf4j
+@RequiredArgsConstructor
+public class ImportService {
+    public static final int CHUNK_SIZE = 1000;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmValidator filmValidator;
+    private final UserValidator userValidator;
+    private final ObjectMapper objectMapper;
+
+    public ImportReport importFilms(InputStream body) throws IOException {
+        log.debug("Importing films");
+        return importRecords(body, node -> {
+            Film film = objectMapper.treeToValue(node, Film.class);
+            film.setId(null);
+            filmValidator.checkNew(film);
+            return film;
+        }, (rows, report) -> write(rows, report, () -> filmStorage.createAll(values(rows))));
+    }
+
+    /**
+     * Imports users; a user whose email or login is taken, in the storage or earlier in the same chunk, is rejected.
+     * Taken values are found by the storage's unique indexes: a chunk that conflicts with stored users is written
+     * again one user at a time, so only the conflicting users fail.
+     */
+    public ImportReport importUsers(InputStream body) throws IOException {
+        log.debug("Importing users");
+        return importRecords(body, node -> {
+            User user = objectMapper.treeToValue(node, User.class);
+            user.setId(null);
+            userValidator.checkNew(user);
+            return user;
+        }, (rows, report) -> {
+            Set<String> emails = new HashSet<>();
+            Set<String> logins = new HashSet<>();
+            List<Row<User>> valid = new ArrayList<>(rows.size());
+            for (Row<User> row : rows) {
+                User user = row.value();
+                if (!emails.add(key(user.getEmail()))) {
+                    report.failed(row.index(), "Имейл " + user.getEmail() + " уже используется");
+                } else if (!logins.add(key(user.getLogin()))) {
+                    report.failed(row.index(), "Логин " + user.getLogin() + " уже используется");
+                } else {
+                    valid.add(row);
+                }
+            }
+            if (valid.isEmpty()) {
+                return;
+            }
+            try {
+                userStorage.createAll(values(valid));
+                report.imported(valid.size());
+            } catch (ConflictException e) {
+                log.debug("Chunk conflicts with stored users, writing it one by one");
+                valid.forEach(row -> write(List.of(row), report, () -> userStorage.create(row.value())));
+            }
+        });
+    }
+
+    /**
+     * Imports {@code {"filmId": 1, "userId": 2}} records; likes of unknown films or users are rejected.
+     */
+    public ImportReport importLikes(InputStream body) throws IOException {
+        log.debug("Importing likes");
+        return importRecords(body, node -> new long[]{id(node, "filmId"), id(node, "userId")}, (rows, report) -> {
+            Set<Long> films = new HashSet<>();
+            filmStorage.findAllByIds(ids(rows, 0)).forEach(film -> films.add(film.getId()));
+            Set<Long> users = new HashSet<>();
+            userStorage.findAllByIds(ids(rows, 1)).forEach(user -> users.add(user.getId()));
+            List<Row<long[]>> valid = new ArrayList<>(rows.size());
+            for (Row<long[]> row : rows) {
+                if (!films.contains(row.value()[0])) {
+                    report.failed(row.index(), "Фильм с id = " + row.value()[0] + " не найден");
+                } else if (!users.contains(row.value()[1])) {
+                    report.failed(row.index(), "Пользователь с id = " + row.value()[1] + " не найден");
+                } else {
+                    valid.add(row);
+                }
+            }
+            write(valid, report, () -> filmStorage.addLikes(group(valid)));
+        });
+    }
+
+    /**
+     * Imports {@code {"userId": 1, "friendId": 2}} records as mutual friendships; unknown users are rejected.
+     */
+    public ImportReport importFriends(InputStream body) throws IOException {
+        log.debug("Importing friendships");
+        return importRecords(body, node -> new long[]{id(node, "userId"), id(node, "friendId")}, (rows, report) -> {
+            Set<Long> ids = ids(rows, 0);
+            ids.addAll(ids(rows, 1));
+            Set<Long> users = new HashSet<>();
+            userStorage.findAllByIds(ids).forEach(user -> users.add(user.getId()));
+            List<Row<long[]>> valid = new ArrayList<>(rows.size());
+            for (Row<long[]> row : rows) {
+                long missing = !users.contains(row.value()[0]) ? row.value()[0]
+                        : !users.contains(row.value()[1]) ? row.value()[1] : -1;
+                if (missing != -1) {
+                    report.failed(row.index(), "Пользователь с id = " + missing + " не найден");
+                } else {
+                    valid.add(row);
+                }
+            }
+            write(valid, report, () -> userStorage.addFriends(group(valid)));
+        });
+    }
+
+    private <T> ImportReport importRecords(InputStream body, RecordReader<T> reader, ChunkWriter<T> writer)
+            throws IOException {
+        ImportReport report = new ImportReport();
+        List<Row<T>> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = objectMapper.readTree(parser);
+                try {
+                    chunk.add(new Row<>(index, reader.read(node)));
+                } catch (JsonProcessingException e) {
+                    report.failed(index, "Некорректная запись: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    report.failed(index, "Некорректная запись: " + e.getMessage());
+                } catch (ValidationException e) {
+                    report.failed(index, e.getMessage());
+                }
+                index++;
+                if (chunk.size() == CHUNK_SIZE) {
+                    flush(chunk, report, writer);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            report.stopped(index, "Некорректный JSON: " + e.getOriginalMessage());
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk, report, writer);
+        }
+        report.getErrors().sort(Comparator.comparingInt(ImportReport.RecordError::index));
+        log.debug("Import finished: imported={}, failed={}, fatalError={}", report.getImported(), report.getFailed(),
+                report.getFatalError());
+        return report;
+    }
+
+    /**
+     * Writes the chunk and empties it even if the write fails, so no record is written twice.
+     */
+    private static <T> void flush(List<Row<T>> chunk, ImportReport report, ChunkWriter<T> writer) {
+        try {
+            writer.write(chunk, report);
+        } finally {
+            chunk.clear();
+        }
+    }
+
+    private static <T> void write(List<Row<T>> rows, ImportReport report, Runnable action) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            action.run();
+            report.imported(rows.size());
+        } catch (NotFoundException | ValidationException | ConflictException e) {
+            rows.forEach(row -> report.failed(row.index(), e.getMessage()));
+        }
+    }
+
+    private static <T> List<T> values(List<Row<T>> rows) {
+        List<T> values = new ArrayList<>(rows.size());
+        rows.forEach(row -> values.add(row.value()));
+        return values;
+    }
+
+    private static Set<Long> ids(List<Row<long[]>> rows, int position) {
+        Set<Long> ids = new HashSet<>();
+        rows.forEach(row -> ids.add(row.value()[position]));
+        return ids;
+    }
+
+    private static Map<Long, LongIdSet> group(List<Row<long[]>> rows) {
+        Map<Long, LongIdSet> grouped = new HashMap<>();
+        rows.forEach(row -> grouped.computeIfAbsent(row.value()[0], id -> new LongIdSet()).add(row.value()[1]));
+        return grouped;
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long id(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isIntegralNumber() || !value.canConvertToLong()) {
+            throw new ValidationException("Поле " + field + " должно быть числом");
+        }
+        return value.asLong();
+    }
+
+    private record Row<T>(int index, T value) {
+    }
+
+    @FunctionalInterface
+    private interface RecordReader<T> {
+        T read(JsonNode node) throws JsonProcessingException;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(List<Row<T>> rows, ImportReport report);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+/**
+ * Bounds of the {@code limit} that pages, searches and recommendations accept.
+ */
+final class PageSize {
+    static final int MAX = 1000;
+
+    private PageSize() {
+    }
+
+    static void check(int limit) {
+        if (limit < 1 || limit > MAX) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX);
+        }
+    }
+}
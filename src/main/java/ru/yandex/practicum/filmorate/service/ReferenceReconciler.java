@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that repairs references to deleted users: friend ids and likes left behind by deletions made
+ * before deletes cascaded, or by a like or friendship that raced with a delete. Runs every
+ * {@code filmorate.reconcile.interval}. A reference is removed only after the user is looked up once more, so a
+ * user created while the scan runs is never mistaken for a deleted one.
+ */
+@Service
+@Slf4j
+public class ReferenceReconciler implements AutoCloseable {
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final ScheduledExecutorService scheduler;
+
+    public ReferenceReconciler(UserStorage userStorage, FilmStorage filmStorage,
+                               @Value("${filmorate.reconcile.interval:PT1H}") Duration interval) {
+        this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reference-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Scans all users and films once and removes the references to users that do not exist. Returns the number
+     * of friend entries and likes removed.
+     */
+    public long reconcile() {
+        LongIdSet userIds = new LongIdSet();
+        for (User user : userStorage.findAll()) {
+            userIds.add(user.getId());
+        }
+        Map<Long, List<Long>> friendHolders = new HashMap<>();
+        for (User user : userStorage.findAll()) {
+            for (long friendId : user.getFriends().toIdArray()) {
+                if (!userIds.contains(friendId)) {
+                    friendHolders.computeIfAbsent(friendId, id -> new ArrayList<>()).add(user.getId());
+                }
+            }
+        }
+        Map<Long, Integer> likeCounts = new HashMap<>();
+        for (Film film : filmStorage.findAll()) {
+            for (long userId : film.getLikes().toIdArray()) {
+                if (!userIds.contains(userId)) {
+                    likeCounts.merge(userId, 1, Integer::sum);
+                }
+            }
+        }
+
+        long friends = 0;
+        for (Map.Entry<Long, List<Long>> entry : friendHolders.entrySet()) {
+            if (userStorage.findById(entry.getKey()).isEmpty()) {
+                userStorage.removeFriendReferences(entry.getKey(), entry.getValue());
+                friends += entry.getValue().size();
+            }
+        }
+        long likes = 0;
+        for (Map.Entry<Long, Integer> entry : likeCounts.entrySet()) {
+            if (userStorage.findById(entry.getKey()).isEmpty()) {
+                filmStorage.removeUserLikes(entry.getKey());
+                likes += entry.getValue();
+            }
+        }
+        if (friends > 0 || likes > 0) {
+            log.info("Removed references to deleted users: friends={}, likes={}", friends, likes);
+        }
+        return friends + likes;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Reference reconciliation failed", e);
+        }
+    }
+}
@@ -1,45 +1,92 @@
 package ru.yandex.practicum.filmorate.service;
 
-import jakarta.validation.Valid;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 
 @Service
+@Timed("filmorate.service")
 @Slf4j
 @RequiredArgsConstructor
 public class UserService {
+    /**
+     * Users whose likes overlap most with the user's and whose likes are turned into film recommendations.
+     */
+    static final int SIMILAR_USERS = 50;
+    /**
+     * Likes of the user that are matched against other users: those on the films with the highest ids, that is the
+     * newest films, whenever the user liked them.
+     */
+    static final int MAX_OWN_LIKES = 1_000;
+    /**
+     * Likes of each similar user that are scored, picked the same way as {@link #MAX_OWN_LIKES}.
+     */
+    static final int MAX_SIMILAR_LIKES = 1_000;
+    /**
+     * Films liked by more users than this are skipped when looking for similar users: they are liked by almost
+     * everyone, say little about taste and would dominate the cost.
+     */
+    static final int MAX_LIKERS_PER_FILM = 10_000;
+    /**
+     * Distinct films scored per request.
+     */
+    static final int MAX_CANDIDATES = 10_000;
+
     private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final UserValidator userValidator;
 
     public Collection<User> findAll() {
         log.debug("Getting all users");
         return userStorage.findAll();
     }
 
-    public User create(@Valid @RequestBody User user) {
+    public List<User> findPage(Long after, int limit) {
+        log.debug("Getting users page: after={}, limit={}", after, limit);
+        PageSize.check(limit);
+        return userStorage.findPage(after, limit);
+    }
+
+    public User create(User user) {
         log.debug("Creating user: {}", user);
+        userValidator.checkNew(user);
         return userStorage.create(user);
     }
 
-    public User update(@Valid @RequestBody User newUser) {
+    public User update(User newUser) {
         log.debug("Updating user: {}", newUser);
+        userValidator.checkChanges(newUser);
         return userStorage.update(newUser);
     }
 
 
-    public void delete(@PathVariable Long id) {
+    /**
+     * Deletes the user with its friendships and likes. The likes are found through the user-to-films index of the
+     * film storage, so the cost depends on the user's friends and likes rather than on the catalog. The likes are
+     * removed first: in the database deleting the user would cascade to them without updating the films' like
+     * counts and cached films.
+     */
+    public void delete(Long id) {
         log.debug("Deleting user with id={}", id);
+        filmStorage.removeUserLikes(id);
         userStorage.delete(id);
+        log.debug("User deleted with friendships and likes: id={}", id);
     }
 
     public Optional<User> findById(Long id) {
@@ -47,6 +94,18 @@ public class UserService {
         return userStorage.findById(id);
     }
 
+    public User findByEmail(String email) {
+        log.debug("Searching user with email={}", email);
+        return userStorage.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("Пользователь с имейлом " + email + " не найден"));
+    }
+
+    public User findByLogin(String login) {
+        log.debug("Searching user with login={}", login);
+        return userStorage.findByLogin(login)
+                .orElseThrow(() -> new NotFoundException("Пользователь с логином " + login + " не найден"));
+    }
+
     public void addFriend(Long userId, Long friendId) {
         log.debug("Adding friend: userId={}, friendId={}", userId, friendId);
         User user = userStorage.findById(userId)
@@ -54,11 +113,7 @@ public class UserService {
         User friend = userStorage.findById(friendId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + friendId + " не найден"));
 
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
-
-        userStorage.update(user);
-        userStorage.update(friend);
+        userStorage.addFriend(user.getId(), friend.getId());
         log.debug("Friend added: userId={}, friendId={}", userId, friendId);
     }
 
@@ -69,14 +124,17 @@ public class UserService {
         User friend = userStorage.findById(friendId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + friendId + " не найден"));
 
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
-
-        userStorage.update(user);
-        userStorage.update(friend);
+        userStorage.removeFriend(user.getId(), friend.getId());
         log.debug("Friend removed: userId={}, friendId={}", userId, friendId);
     }
 
+    public List<User> getFriends(Long userId) {
+        log.debug("Getting friends: userId={}", userId);
+        User user = userStorage.findById(userId)
+                .orElseThrow(() -> new NotFoundException("User with id " + userId + " not found"));
+        return findAllByIds(user.getFriends().toSortedArray());
+    }
+
     public List<User> getCommonFriends(Long userId, Long otherId) {
         log.debug("Getting common friends: userId={}, otherId={}", userId, otherId);
         User user = userStorage.findById(userId)
@@ -84,11 +142,108 @@ public class UserService {
         User otherUser = userStorage.findById(otherId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + otherId + " не найден"));
 
-        List<User> commonFriends = user.getFriends().stream()
-                .filter(otherUser.getFriends()::contains)
-                .map(id -> userStorage.findById(id).orElseThrow(() -> new NotFoundException("User with id " + id + " not found")))
-                .collect(Collectors.toList());
-        log.debug("Found common friends: userId={}, otherId={}, commonFriends={}", userId, otherId, commonFriends);
+        List<User> commonFriends = findAllByIds(LongIdSet.intersect(user.getFriends(), otherUser.getFriends()));
+        if (log.isDebugEnabled()) {
+            log.debug("Found common friends: userId={}, otherId={}, found={}", userId, otherId, commonFriends.size());
+        }
         return commonFriends;
     }
+
+    /**
+     * Friends of the user's friends who are not yet friends with the user, ranked by the number of mutual friends
+     * and then by id. Friend lists are read once as primitive arrays and counted in {@link IdCounter}.
+     */
+    public List<FriendRecommendation> getRecommendations(Long userId, int limit) {
+        log.debug("Getting friend recommendations: userId={}, limit={}", userId, limit);
+        PageSize.check(limit);
+        User user = userStorage.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
+        LongIdSet friendIds = user.getFriends();
+        List<User> friends = userStorage.findAllByIds(Arrays.stream(friendIds.toIdArray()).boxed().toList());
+        int links = 0;
+        for (User friend : friends) {
+            links += friend.getFriends().size();
+        }
+        IdCounter mutualFriends = new IdCounter(links);
+        for (User friend : friends) {
+            for (long id : friend.getFriends().toIdArray()) {
+                mutualFriends.increment(id);
+            }
+        }
+        mutualFriends.exclude(userId);
+        for (long friendId : friendIds.toIdArray()) {
+            mutualFriends.exclude(friendId);
+        }
+        long[] ranked = mutualFriends.top(limit);
+        List<FriendRecommendation> recommendations = new ArrayList<>(ranked.length);
+        for (User candidate : userStorage.findAllByIds(Arrays.stream(ranked).boxed().toList())) {
+            recommendations.add(new FriendRecommendation(candidate, mutualFriends.get(candidate.getId())));
+        }
+        log.debug("Found friend recommendations: userId={}, found={}", userId, recommendations.size());
+        return recommendations;
+    }
+
+    /**
+     * Films liked by the users whose likes overlap most with the user's, which the user has not liked yet. A film
+     * scores the sum of the overlaps of the similar users who liked it; ties go to the lower id. Reads the
+     * user's likes from the user-to-films index of the storage and keeps those on the highest film ids, and does
+     * the same for each similar user, so the cost is bounded by {@link #MAX_OWN_LIKES},
+     * {@link #MAX_LIKERS_PER_FILM}, {@link #SIMILAR_USERS}, {@link #MAX_SIMILAR_LIKES} and
+     * {@link #MAX_CANDIDATES} rather than the catalog.
+     */
+    public List<Film> getFilmRecommendations(Long userId, int limit) {
+        log.debug("Getting film recommendations: userId={}, limit={}", userId, limit);
+        PageSize.check(limit);
+        userStorage.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
+        long[] liked = filmStorage.findLikedFilmIds(userId);
+        if (liked.length == 0) {
+            return List.of();
+        }
+        long[] newest = Arrays.copyOfRange(liked, Math.max(0, liked.length - MAX_OWN_LIKES), liked.length);
+        IdCounter overlaps = new IdCounter(newest.length * 16);
+        for (Film film : filmStorage.findAllByIds(Arrays.stream(newest).boxed().toList())) {
+            if (film.getLikes().size() <= MAX_LIKERS_PER_FILM) {
+                for (long otherId : film.getLikes().toIdArray()) {
+                    overlaps.increment(otherId);
+                }
+            }
+        }
+        overlaps.exclude(userId);
+
+        IdCounter scores = new IdCounter(MAX_CANDIDATES);
+        for (long similarId : overlaps.top(SIMILAR_USERS)) {
+            int overlap = overlaps.get(similarId);
+            long[] similarLiked = filmStorage.findLikedFilmIds(similarId);
+            for (int i = similarLiked.length - 1; i >= Math.max(0, similarLiked.length - MAX_SIMILAR_LIKES); i--) {
+                long filmId = similarLiked[i];
+                if (scores.size() < MAX_CANDIDATES || scores.get(filmId) > 0) {
+                    scores.add(filmId, overlap);
+                }
+            }
+        }
+        for (long filmId : liked) {
+            scores.exclude(filmId);
+        }
+        List<Film> recommendations = filmStorage.findAllByIds(Arrays.stream(scores.top(limit)).boxed().toList());
+        log.debug("Found film recommendations: userId={}, found={}", userId, recommendations.size());
+        return recommendations;
+    }
+
+    private List<User> findAllByIds(long[] ids) {
+        List<User> users = userStorage.findAllByIds(Arrays.stream(ids).boxed().toList());
+        if (users.size() != ids.length) {
+            throw new NotFoundException("User with id " + firstMissing(ids, users) + " not found");
+        }
+        return users;
+    }
+
+    private static long firstMissing(long[] ids, List<User> found) {
+        for (int i = 0; i < ids.length; i++) {
+            if (i >= found.size() || found.get(i).getId() != ids[i]) {
+                return ids[i];
+            }
+        }
+        return -1L;
+    }
 }
@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link FilmStorage} decorator that keeps films read by id in a bounded Caffeine cache and the popular list per
+ * {@code count} in a second cache with a short TTL. Writes invalidate the affected film once the delegate is done;
+ * the popular lists are dropped on update and delete and otherwise trail likes by at most {@code popularTtl}.
+ */
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final Cache<Long, Film> films;
+    private final Cache<Integer, List<Film>> popular;
+
+    public CachingFilmStorage(FilmStorage delegate, long maximumSize, Duration ttl, Duration popularTtl,
+                              MeterRegistry registry) {
+        this.delegate = delegate;
+        films = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        popular = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(popularTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, films, "films");
+        CaffeineCacheMetrics.monitor(registry, popular, "films.popular");
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Film create(Film film) {
+        return delegate.create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> newFilms) {
+        return delegate.createAll(newFilms);
+    }
+
+    @Override
+    public Film update(Film newFilm) {
+        try {
+            return delegate.update(newFilm);
+        } finally {
+            films.invalidate(newFilm.getId());
+            popular.invalidateAll();
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            films.invalidate(id);
+            popular.invalidateAll();
+        }
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return Optional.ofNullable(films.get(id, key -> delegate.findById(key).orElse(null)));
+    }
+
+    @Override
+    public List<Film> findPage(Long after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    /**
+     * Serves cached films and reads the rest from the delegate in one call. The misses are not put into the cache:
+     * unlike {@link Cache#get} a bulk load is not atomic per key and could overwrite a concurrent invalidation.
+     */
+    @Override
+    public List<Film> findAllByIds(Collection<Long> ids) {
+        Map<Long, Film> cached = films.getAllPresent(ids);
+        List<Long> missing = new ArrayList<>(ids.size() - cached.size());
+        for (Long id : ids) {
+            if (!cached.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        Map<Long, Film> found = new HashMap<>(cached);
+        if (!missing.isEmpty()) {
+            delegate.findAllByIds(missing).forEach(film -> found.put(film.getId(), film));
+        }
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = found.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        try {
+            delegate.addLike(filmId, userId);
+        } finally {
+            films.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+        try {
+            delegate.addLikes(likesByFilm);
+        } finally {
+            films.invalidateAll(likesByFilm.keySet());
+        }
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        try {
+            delegate.removeLike(filmId, userId);
+        } finally {
+            films.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public void removeUserLikes(Long userId) {
+        long[] filmIds = delegate.findLikedFilmIds(userId);
+        try {
+            delegate.removeUserLikes(userId);
+        } finally {
+            for (long filmId : filmIds) {
+                films.invalidate(filmId);
+            }
+        }
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        return popular.get(count, delegate::findPopular);
+    }
+
+    @Override
+    public List<Film> findPopular(int count, FilmFilter filter) {
+        return delegate.findPopular(count, filter);
+    }
+
+    @Override
+    public List<Film> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public List<Film> findTrending(TrendingWindow window, int count) {
+        return delegate.findTrending(window, count);
+    }
+
+    @Override
+    public long[] findLikedFilmIds(Long userId) {
+        return delegate.findLikedFilmIds(userId);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countLikes() {
+        return delegate.countLikes();
+    }
+}
@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link UserStorage} decorator that keeps users read by id in a bounded Caffeine cache. Friendship changes
+ * invalidate both users once the delegate is done.
+ */
+public class CachingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final Cache<Long, User> users;
+
+    public CachingUserStorage(UserStorage delegate, long maximumSize, Duration ttl, MeterRegistry registry) {
+        this.delegate = delegate;
+        users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, users, "users");
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public User create(User user) {
+        return delegate.create(user);
+    }
+
+    @Override
+    public List<User> createAll(List<User> newUsers) {
+        return delegate.createAll(newUsers);
+    }
+
+    @Override
+    public User update(User newUser) {
+        try {
+            return delegate.update(newUser);
+        } finally {
+            users.invalidate(newUser.getId());
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        LongIdSet friends = delegate.findById(id).map(User::getFriends).orElseGet(LongIdSet::new);
+        try {
+            delegate.delete(id);
+        } finally {
+            users.invalidate(id);
+            users.invalidateAll(friends);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(users.get(id, key -> delegate.findById(key).orElse(null)));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return delegate.findByLogin(login);
+    }
+
+    @Override
+    public List<User> findPage(Long after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    /**
+     * Serves cached users and reads the rest from the delegate in one call without caching them, see
+     * {@link CachingFilmStorage#findAllByIds}.
+     */
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        Map<Long, User> cached = users.getAllPresent(ids);
+        List<Long> missing = new ArrayList<>(ids.size() - cached.size());
+        for (Long id : ids) {
+            if (!cached.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        Map<Long, User> found = new HashMap<>(cached);
+        if (!missing.isEmpty()) {
+            delegate.findAllByIds(missing).forEach(user -> found.put(user.getId(), user));
+        }
+        List<User> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        try {
+            delegate.addFriend(userId, friendId);
+        } finally {
+            users.invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    @Override
+    public void addFriends(Map<Long, LongIdSet> friendsByUser) {
+        try {
+            delegate.addFriends(friendsByUser);
+        } finally {
+            users.invalidateAll(friendsByUser.keySet());
+            friendsByUser.values().forEach(users::invalidateAll);
+        }
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        try {
+            delegate.removeFriend(userId, friendId);
+        } finally {
+            users.invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    @Override
+    public void removeFriendReferences(Long deletedId, Collection<Long> userIds) {
+        try {
+            delegate.removeFriendReferences(deletedId, userIds);
+        } finally {
+            users.invalidateAll(userIds);
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countFriendLinks() {
+        return delegate.countFriendLinks();
+    }
+}
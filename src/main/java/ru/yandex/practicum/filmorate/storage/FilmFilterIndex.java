@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes of {@link InMemoryFilmStorage}: films by release year (hash buckets) and by duration (sorted
+ * buckets). Entries follow the film's current fields, so callers remove a film before changing those fields and add
+ * it back afterwards, under the film's lock.
+ */
+final class FilmFilterIndex {
+    private final Map<Integer, Map<Long, Film>> byYear = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Integer, Map<Long, Film>> byDuration = new ConcurrentSkipListMap<>();
+
+    void add(Film film) {
+        if (film.getReleaseDate() != null) {
+            addTo(byYear, film.getReleaseDate().getYear(), film);
+        }
+        addTo(byDuration, film.getDuration(), film);
+    }
+
+    void remove(Film film) {
+        if (film.getReleaseDate() != null) {
+            removeFrom(byYear, film.getReleaseDate().getYear(), film.getId());
+        }
+        removeFrom(byDuration, film.getDuration(), film.getId());
+    }
+
+    /**
+     * Buckets holding every film that matches {@code filter}: the year bucket or the duration range, whichever
+     * holds fewer films. Their films still have to be checked against the rest of the filter.
+     */
+    Candidates candidates(FilmFilter filter) {
+        Candidates best = null;
+        if (filter.year() != null) {
+            Map<Long, Film> films = byYear.get(filter.year());
+            best = films == null ? new Candidates(List.of(), 0) : new Candidates(List.of(films), films.size());
+        }
+        if (filter.minDuration() != null || filter.maxDuration() != null) {
+            int from = filter.minDuration() == null ? Integer.MIN_VALUE : filter.minDuration();
+            int to = filter.maxDuration() == null ? Integer.MAX_VALUE : filter.maxDuration();
+            Collection<Map<Long, Film>> buckets = from > to
+                    ? List.of()
+                    : byDuration.subMap(from, true, to, true).values();
+            List<Map<Long, Film>> range = new ArrayList<>();
+            long size = 0;
+            for (Map<Long, Film> bucket : buckets) {
+                range.add(bucket);
+                size += bucket.size();
+                if (best != null && size >= best.size()) {
+                    return best;
+                }
+            }
+            best = new Candidates(range, size);
+        }
+        return best;
+    }
+
+    private static void addTo(Map<Integer, Map<Long, Film>> index, int key, Film film) {
+        index.compute(key, (k, films) -> {
+            Map<Long, Film> result = films == null ? new ConcurrentHashMap<>() : films;
+            result.put(film.getId(), film);
+            return result;
+        });
+    }
+
+    private static void removeFrom(Map<Integer, Map<Long, Film>> index, int key, long filmId) {
+        index.computeIfPresent(key, (k, films) -> {
+            films.remove(filmId);
+            return films.isEmpty() ? null : films;
+        });
+    }
+
+    record Candidates(List<Map<Long, Film>> buckets, long size) {
+    }
+}
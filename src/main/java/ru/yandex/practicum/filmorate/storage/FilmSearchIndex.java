@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Inverted index of film names and descriptions for {@link InMemoryFilmStorage}: every term maps to the ids of the
+ * films that contain it. Terms are runs of letters and digits, lower-cased, with "ё" folded to "е". Terms are kept
+ * sorted, so the films with a term starting with a prefix are the postings of one sub-map. Like
+ * {@link FilmFilterIndex}, callers remove a film before changing its text and add it back afterwards.
+ */
+final class FilmSearchIndex {
+    private final ConcurrentNavigableMap<String, LongIdSet> postings = new ConcurrentSkipListMap<>();
+    /**
+     * Guards the postings of each term: the skip list's {@code compute} is not atomic, and two films sharing a term
+     * are changed under different film locks.
+     */
+    private final StripedLock termLocks = new StripedLock();
+
+    void add(Film film) {
+        for (String term : terms(film)) {
+            termLocks.withLock(term.hashCode(), () -> {
+                LongIdSet ids = postings.get(term);
+                if (ids == null) {
+                    ids = new LongIdSet();
+                    postings.put(term, ids);
+                }
+                ids.add(film.getId());
+            });
+        }
+    }
+
+    void remove(Film film) {
+        for (String term : terms(film)) {
+            termLocks.withLock(term.hashCode(), () -> {
+                LongIdSet ids = postings.get(term);
+                if (ids != null && ids.remove(film.getId()) && ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            });
+        }
+    }
+
+    /**
+     * Number of postings of the terms starting with {@code prefix}, counted up to {@code limit}; a film with several
+     * such terms is counted once per term.
+     */
+    long estimate(String prefix, long limit) {
+        long size = 0;
+        for (LongIdSet ids : withPrefix(prefix).values()) {
+            size += ids.size();
+            if (size >= limit) {
+                break;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Ids of the films with a term starting with {@code prefix}.
+     */
+    LongIdSet find(String prefix) {
+        LongIdSet result = new LongIdSet();
+        for (LongIdSet ids : withPrefix(prefix).values()) {
+            for (long id : ids.toIdArray()) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether every one of {@code prefixes} starts some term of the film.
+     */
+    static boolean matches(Film film, List<String> prefixes) {
+        Set<String> terms = terms(film);
+        for (String prefix : prefixes) {
+            boolean found = false;
+            for (String term : terms) {
+                if (term.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Distinct terms of {@code text} in order of appearance.
+     */
+    static List<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        addTerms(text, terms);
+        return new ArrayList<>(terms);
+    }
+
+    private ConcurrentNavigableMap<String, LongIdSet> withPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static Set<String> terms(Film film) {
+        Set<String> terms = new LinkedHashSet<>();
+        addTerms(film.getName(), terms);
+        addTerms(film.getDescription(), terms);
+        return terms;
+    }
+
+    private static void addTerms(String text, Set<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inTerm && start < 0) {
+                start = i;
+            } else if (!inTerm && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT).replace('ё', 'е'));
+                start = -1;
+            }
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface FilmStorage {
@@ -10,13 +15,69 @@ public interface FilmStorage {
 
     Film create(Film film);
 
+    /**
+     * Creates the films as one write.
+     */
+    List<Film> createAll(List<Film> films);
+
     Film update(Film newFilm);
 
     void delete(Long id);
 
     Optional<Film> findById(Long id);
 
+    /**
+     * Returns up to {@code limit} films with id greater than {@code after} (from the start if null), ordered by id.
+     */
+    List<Film> findPage(Long after, int limit);
+
+    /**
+     * Returns the films with the given ids in the order of {@code ids}; unknown ids are skipped.
+     */
+    List<Film> findAllByIds(Collection<Long> ids);
+
     void addLike(Long filmId, Long userId);
 
+    /**
+     * Adds the likes of each film id as one write; all films must exist and repeated likes are ignored.
+     */
+    void addLikes(Map<Long, LongIdSet> likesByFilm);
+
     void removeLike(Long filmId, Long userId);
+
+    /**
+     * Removes every like of the user, once the user is deleted; a user without likes is not an error.
+     */
+    void removeUserLikes(Long userId);
+
+    List<Film> findPopular(int count);
+
+    /**
+     * The {@code count} most liked films that match {@code filter}, in the order of {@link #findPopular(int)}.
+     */
+    List<Film> findPopular(int count, FilmFilter filter);
+
+    /**
+     * Up to {@code count} films ranked by the likes they received within the window, most first and ties by id;
+     * films without such likes are left out.
+     */
+    List<Film> findTrending(TrendingWindow window, int count);
+
+    /**
+     * Up to {@code limit} films whose name or description has a word starting with each word of {@code query},
+     * in the order of {@link #findPopular(int)}.
+     */
+    List<Film> search(String query, int limit);
+
+    /**
+     * Ids of the films liked by the user, in ascending order.
+     */
+    long[] findLikedFilmIds(Long userId);
+
+    long count();
+
+    /**
+     * Total number of likes over all films.
+     */
+    long countLikes();
 }
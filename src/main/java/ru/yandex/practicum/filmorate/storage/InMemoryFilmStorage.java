@@ -1,138 +1,733 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
-@Component
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
-    private Long idCounter = 1L;
+    private static final byte CREATED = 1;
+    private static final byte UPDATED = 2;
+    private static final byte DELETED = 3;
+    private static final byte LIKED = 4;
+    private static final byte UNLIKED = 5;
+    /**
+     * Like with the time it was made, written instead of {@link #LIKED}, which is still read from older journals.
+     * A withdrawn like is written as {@link #UNLIKED}: the trending index subtracts it at the time of the like.
+     */
+    private static final byte LIKED_AT = 6;
+    /**
+     * Withdrawn like with its time, written by older versions; the time is skipped.
+     */
+    private static final byte UNLIKED_AT = 7;
+    /**
+     * Relative cost of checking one film while walking the popularity ranking against taking one candidate from a
+     * secondary index into the top-K heap; see {@link #findPopular(int, FilmFilter)}.
+     */
+    private static final int WALK_COST = 10;
+    /**
+     * Same for {@link #search}, where checking a film while walking the ranking means tokenizing its text.
+     */
+    private static final int SEARCH_WALK_COST = 4;
+
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    /**
+     * Same films by id for point lookups: a hash probe instead of a skip-list walk, which dominates ranked reads
+     * and searches that load thousands of candidates.
+     */
+    private final Map<Long, Film> byId = new ConcurrentHashMap<>();
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+    private final TrendingIndex trendingIndex;
+    private final FilmFilterIndex filterIndex = new FilmFilterIndex();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    /**
+     * Films liked by each user, kept in step with {@link Film#getLikes()}; read by film recommendations.
+     */
+    private final Map<Long, LongIdSet> likedFilms = new ConcurrentHashMap<>();
+    private final StripedLock locks = new StripedLock();
+    private final AtomicLong idCounter;
+    private final int idStep;
+    private final LongAdder likeCount = new LongAdder();
+    private final Journal journal;
+    private final LongIdSet deletedWhileLoading = new LongIdSet();
+    private volatile MappedSnapshot snapshot;
+    private volatile CompletableFuture<Void> loaded = CompletableFuture.completedFuture(null);
+
+    public InMemoryFilmStorage() {
+        this((Journal) null);
+    }
+
+    /**
+     * Storage without a journal that dates likes by {@code clock}.
+     */
+    public InMemoryFilmStorage(Clock clock) {
+        this(null, 1L, 1, clock);
+    }
+
+    /**
+     * Storage that writes every change to {@code journal}; call {@link #recover()} before use.
+     */
+    public InMemoryFilmStorage(Journal journal) {
+        this(journal, 1L, 1);
+    }
+
+    /**
+     * Storage without a journal that hands out ids {@code firstId}, {@code firstId + idStep}, ...; one shard of
+     * {@link ShardedFilmStorage}.
+     */
+    InMemoryFilmStorage(long firstId, int idStep) {
+        this(null, firstId, idStep);
+    }
+
+    private InMemoryFilmStorage(Journal journal, long firstId, int idStep) {
+        this(journal, firstId, idStep, Clock.systemUTC());
+    }
+
+    private InMemoryFilmStorage(Journal journal, long firstId, int idStep, Clock clock) {
+        this.journal = journal;
+        this.trendingIndex = new TrendingIndex(clock);
+        this.idCounter = new AtomicLong(firstId);
+        this.idStep = idStep;
+    }
 
     @Override
     public Collection<Film> findAll() {
+        awaitLoaded();
         return films.values();
     }
 
     @Override
     public Film create(Film film) {
-        log.info("Проверка условий на добавление фильма");
-        if (film.getName() == null || film.getName().isBlank()) {
-            log.error("Ошибка при заполнении name: пустое");
-            throw new ValidationException("Название не может быть пустым");
-        }
-        if (film.getDescription() == null || film.getDescription().length() > 200) {
-            log.error("Ошибка при заполнении description: пустое");
-            throw new ValidationException("Описание не может быть пустым и длиннее 200 символов");
-        }
-        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
-            log.error("Ошибка при заполнении releaseDate: недопустимое или пустое значение");
-            throw new ValidationException("Дата релиза - не раньше  28 декабря 1895 года");
-
-        }
-        if (film.getDuration() <= 0) {
-            log.error("Ошибка при заполнении duration: недопустимое значение");
-            throw new ValidationException("Продолжительность фильма должна быть положительным числом");
-
-        }
-        log.info("Добавляем новый фильм");
-        film.setId(idCounter++);
-        film.setReleaseDate(film.getReleaseDate());
-        film.setDuration(film.getDuration());
-        films.put(film.getId(), film);
-        log.info("Фильм добавлен!");
+        insert(film);
+        sync();
+        log.debug("Фильм добавлен: id={}", film.getId());
         return film;
     }
 
-    public Film update(Film newFilm) {
-        log.info("Проверка условий на обновление фильма");
-        if (newFilm.getId() == null) {
-            log.error("Пустой id");
-            throw new ValidationException("Id должен быть указан");
-        }
-
-        log.info("Проверка наличия фильма в коллекции");
-        if (films.containsKey(newFilm.getId())) {
-            Film oldFilm = films.get(newFilm.getId());
+    @Override
+    public List<Film> createAll(List<Film> newFilms) {
+        newFilms.forEach(this::insert);
+        sync();
+        log.debug("Фильмы добавлены: {}", newFilms.size());
+        return newFilms;
+    }
 
-            log.info("Проверка и обновление name");
+    @Override
+    public Film update(Film newFilm) {
+        Film updated = locks.withLock(newFilm.getId(), () -> {
+            Film oldFilm = find(newFilm.getId());
+            if (oldFilm == null) {
+                log.warn("Фильм с id = {} не найден", newFilm.getId());
+                throw new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден");
+            }
+            filterIndex.remove(oldFilm);
+            searchIndex.remove(oldFilm);
             if (newFilm.getName() != null) {
-                if (newFilm.getName().isBlank()) {
-                    log.error("Ошибка при заполнении name: пустое");
-                    throw new ValidationException("Название не может быть пустым");
-                }
                 oldFilm.setName(newFilm.getName());
             }
-
-            log.info("Проверка и обновление description");
             if (newFilm.getDescription() != null) {
-                if (newFilm.getDescription().length() > 200) {
-                    log.error("Ошибка при заполнении description: слишком длинное");
-                    throw new ValidationException("Описание не может быть длиннее 200 символов");
-                }
                 oldFilm.setDescription(newFilm.getDescription());
             }
-
-            log.info("Проверка и обновление releaseDate");
             if (newFilm.getReleaseDate() != null) {
-                if (newFilm.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
-                    log.error("Ошибка при заполнении releaseDate: слишком ранняя дата");
-                    throw new ValidationException("Дата релиза - не раньше  28 декабря 1895 года");
-                }
                 oldFilm.setReleaseDate(newFilm.getReleaseDate());
             }
-
-            log.info("Проверка и обновление duration");
             if (newFilm.getDuration() != -1) {
-                if (newFilm.getDuration() <= 0) {
-                    log.error("Ошибка при заполнении duration: не положительное число");
-                    throw new ValidationException("Продолжительность фильма должна быть положительным числом");
-                }
                 oldFilm.setDuration(newFilm.getDuration());
             }
-            log.info("Фильм обновлен!");
+            filterIndex.add(oldFilm);
+            searchIndex.add(oldFilm);
+            journal(out -> {
+                out.writeByte(UPDATED);
+                writeFields(out, oldFilm);
+            });
             return oldFilm;
-        }
-        log.error("Фильм с id = {} не найден", newFilm.getId());
-        throw new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден");
+        });
+        sync();
+        log.debug("Фильм обновлен: id={}", updated.getId());
+        return updated;
     }
 
     @Override
     public void delete(Long id) {
-        if (!films.containsKey(id)) {
-            throw new NotFoundException("Фильм с id = " + id + " не найден");
-        }
-        films.remove(id);
+        locks.withLock(id, () -> {
+            if (!unload(id)) {
+                throw new NotFoundException("Фильм с id = " + id + " не найден");
+            }
+            journal(out -> {
+                out.writeByte(DELETED);
+                out.writeLong(id);
+            });
+        });
+        sync();
     }
 
     @Override
     public Optional<Film> findById(Long id) {
-        return Optional.ofNullable(films.get(id));
+        return Optional.ofNullable(find(id));
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        if (!films.containsKey(filmId)) {
-            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+    public List<Film> findPage(Long after, int limit) {
+        awaitLoaded();
+        List<Film> page = new ArrayList<>(limit);
+        Iterator<Film> iterator = films.tailMap(after == null ? Long.MIN_VALUE : after, false).values().iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
         }
-        Film film = films.get(filmId);
-        film.getLikes().add(userId);
+        return page;
+    }
+
+    @Override
+    public List<Film> findAllByIds(Collection<Long> ids) {
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = find(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        locks.withLock(filmId, () -> {
+            Film film = getExisting(filmId);
+            if (film.getLikes().add(userId)) {
+                long likedAt = trendingIndex.millis();
+                indexLike(filmId, userId);
+                popularityIndex.put(filmId, film.getLikes().size());
+                trendingIndex.like(filmId, userId, likedAt);
+                likeCount.increment();
+                journal(out -> {
+                    out.writeByte(LIKED_AT);
+                    out.writeLong(filmId);
+                    out.writeLong(userId);
+                    out.writeLong(likedAt);
+                });
+            }
+        });
+        sync();
+    }
+
+    @Override
+    public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+        likesByFilm.forEach((filmId, userIds) -> locks.withLock(filmId, () -> {
+            Film film = getExisting(filmId);
+            int before = film.getLikes().size();
+            long likedAt = trendingIndex.millis();
+            for (Long userId : userIds) {
+                if (film.getLikes().add(userId)) {
+                    indexLike(filmId, userId);
+                    trendingIndex.like(filmId, userId, likedAt);
+                    journal(out -> {
+                        out.writeByte(LIKED_AT);
+                        out.writeLong(filmId);
+                        out.writeLong(userId);
+                        out.writeLong(likedAt);
+                    });
+                }
+            }
+            int added = film.getLikes().size() - before;
+            popularityIndex.put(filmId, film.getLikes().size());
+            likeCount.add(added);
+        }));
+        sync();
     }
 
     @Override
     public void removeLike(Long filmId, Long userId) {
-        if (!films.containsKey(filmId)) {
-            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        locks.withLock(filmId, () -> {
+            if (!unlike(getExisting(filmId), userId)) {
+                throw new NotFoundException("Лайк от пользователя с id = " + userId + " для фильма с id = " + filmId + " не найден");
+            }
+        });
+        sync();
+    }
+
+    /**
+     * Walks the films of the user-to-films index, so the cost is the number of the user's likes.
+     */
+    @Override
+    public void removeUserLikes(Long userId) {
+        for (long filmId : findLikedFilmIds(userId)) {
+            locks.withLock(filmId, () -> {
+                Film film = find(filmId);
+                if (film != null) {
+                    unlike(film, userId);
+                }
+            });
+        }
+        sync();
+        log.debug("Лайки пользователя удалены: userId={}", userId);
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        awaitLoaded();
+        List<Film> result = new ArrayList<>();
+        for (Long id : popularityIndex.top(count)) {
+            Film film = byId.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes whichever is cheaper for the expected number of matches {@code m} out of {@code n} films: walking the
+     * popularity ranking and checking films until {@code count} match (about {@code count * n / m} checks), or
+     * picking the top {@code count} of the {@code m} candidates from the year or duration index with a heap.
+     */
+    @Override
+    public List<Film> findPopular(int count, FilmFilter filter) {
+        awaitLoaded();
+        FilmFilterIndex.Candidates candidates = filter.isEmpty() ? null : filterIndex.candidates(filter);
+        if (candidates == null) {
+            return findPopular(count);
+        }
+        if (count <= 0 || candidates.size() == 0) {
+            return List.of();
+        }
+        if ((long) WALK_COST * count * films.size() < candidates.size() * candidates.size()) {
+            List<Long> ids = popularityIndex.top(count, id -> {
+                Film film = byId.get(id);
+                return film != null && filter.matches(film);
+            });
+            return findAllByIds(ids);
+        }
+        PriorityQueue<Ranked> top = new PriorityQueue<>(count + 1, Ranked.ORDER.reversed());
+        for (Map<Long, Film> bucket : candidates.buckets()) {
+            for (Film film : bucket.values()) {
+                if (filter.matches(film)) {
+                    Ranked.offer(top, film, count);
+                }
+            }
+        }
+        return Ranked.sorted(top);
+    }
+
+    /**
+     * Films with a term starting with every term of {@code query}, most liked first. Plans like
+     * {@link #findPopular(int, FilmFilter)}: the query term with the fewest postings gives the candidates, and if
+     * they are too many to beat a walk over the popularity ranking, the ranking is walked instead.
+     */
+    @Override
+    public List<Film> search(String query, int limit) {
+        awaitLoaded();
+        List<String> prefixes = FilmSearchIndex.tokenize(query);
+        if (prefixes.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        long walkThreshold = (long) Math.sqrt((double) SEARCH_WALK_COST * limit * films.size()) + 1;
+        String rarest = null;
+        long matches = walkThreshold;
+        for (String prefix : prefixes) {
+            long estimate = searchIndex.estimate(prefix, matches);
+            if (estimate < matches) {
+                matches = estimate;
+                rarest = prefix;
+            }
+        }
+        if (rarest == null) {
+            List<Long> ids = popularityIndex.top(limit, id -> {
+                Film film = byId.get(id);
+                return film != null && FilmSearchIndex.matches(film, prefixes);
+            });
+            return findAllByIds(ids);
+        }
+        PriorityQueue<Ranked> top = new PriorityQueue<>(limit + 1, Ranked.ORDER.reversed());
+        for (long id : searchIndex.find(rarest).toIdArray()) {
+            Film film = byId.get(id);
+            if (film != null && (prefixes.size() == 1 || FilmSearchIndex.matches(film, prefixes))) {
+                Ranked.offer(top, film, limit);
+            }
+        }
+        return Ranked.sorted(top);
+    }
+
+    /**
+     * Counts the current likes of each film made within the window; likes restored from a snapshot are not dated
+     * and do not count.
+     */
+    @Override
+    public List<Film> findTrending(TrendingWindow window, int count) {
+        awaitLoaded();
+        List<Film> result = new ArrayList<>();
+        for (TrendingIndex.Entry entry : trendingIndex.top(window, count)) {
+            Film film = byId.get(entry.filmId());
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long[] findLikedFilmIds(Long userId) {
+        awaitLoaded();
+        LongIdSet filmIds = likedFilms.get(userId);
+        return filmIds == null ? new long[0] : filmIds.toSortedArray();
+    }
+
+    @Override
+    public long count() {
+        awaitLoaded();
+        return films.size();
+    }
+
+    @Override
+    public long countLikes() {
+        awaitLoaded();
+        return likeCount.sum();
+    }
+
+    /**
+     * Maps the latest snapshot and replays the journal written after it. Films are then served straight from the
+     * mapped file on first access while a background thread loads the rest; scans and counts wait for it
+     * to finish.
+     */
+    public void recover() {
+        journal.open(this::openSnapshot, this::replay);
+        MappedSnapshot source = snapshot;
+        if (source == null) {
+            log.info("Фильмы восстановлены: {}", films.size());
+            return;
         }
-        Film film = films.get(filmId);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        loaded = future;
+        Thread.ofPlatform().name("films-loader").daemon().start(() -> {
+            try {
+                loadAll(source);
+                snapshot = null;
+                future.complete(null);
+                log.info("Фильмы восстановлены: {}", films.size());
+            } catch (RuntimeException e) {
+                log.error("Не удалось загрузить снимок фильмов", e);
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot of all films while writes continue; records journaled meanwhile are replayed over it.
+     */
+    public void snapshot() {
+        awaitLoaded();
+        journal.snapshot(file -> {
+            try (MappedSnapshot.Writer writer = new MappedSnapshot.Writer(file)) {
+                long nextId = idCounter.get();
+                for (Film film : films.values()) {
+                    writer.add(film.getId(), film.getLikes().toSortedArray(), out -> writeFields(out, film));
+                }
+                writer.finish(nextId);
+            }
+        });
+    }
+
+    TrendingIndex trendingIndex() {
+        return trendingIndex;
+    }
+
+    /**
+     * Waits until every film of the snapshot is on the heap.
+     */
+    public void awaitLoaded() {
+        loaded.join();
+    }
+
+    private void insert(Film film) {
+        long id = idCounter.getAndAdd(idStep);
+        film.setId(id);
+        film.setLikes(LongIdSet.copyOf(film.getLikes()));
+        locks.withLock(id, () -> {
+            films.put(id, film);
+            byId.put(id, film);
+            filterIndex.add(film);
+            searchIndex.add(film);
+            indexLikes(film, true);
+            popularityIndex.put(id, film.getLikes().size());
+            likeCount.add(film.getLikes().size());
+            journal(out -> {
+                out.writeByte(CREATED);
+                writeFilm(out, film);
+            });
+        });
+    }
+
+    private void indexLike(long filmId, long userId) {
+        likedFilms.compute(userId, (id, filmIds) -> {
+            LongIdSet result = filmIds == null ? new LongIdSet() : filmIds;
+            result.add(filmId);
+            return result;
+        });
+    }
+
+    private boolean unlike(Film film, long userId) {
+        long filmId = film.getId();
         if (!film.getLikes().remove(userId)) {
-            throw new NotFoundException("Лайк от пользователя с id = " + userId + " для фильма с id = " + filmId + " не найден");
+            return false;
+        }
+        unindexLike(filmId, userId);
+        popularityIndex.put(filmId, film.getLikes().size());
+        trendingIndex.unlike(filmId, userId);
+        likeCount.decrement();
+        journal(out -> {
+            out.writeByte(UNLIKED);
+            out.writeLong(filmId);
+            out.writeLong(userId);
+        });
+        return true;
+    }
+
+    private void unindexLike(long filmId, long userId) {
+        likedFilms.computeIfPresent(userId, (id, filmIds) -> {
+            filmIds.remove(filmId);
+            return filmIds.isEmpty() ? null : filmIds;
+        });
+    }
+
+    private void indexLikes(Film film, boolean liked) {
+        for (long userId : film.getLikes().toIdArray()) {
+            if (liked) {
+                indexLike(film.getId(), userId);
+            } else {
+                unindexLike(film.getId(), userId);
+            }
+        }
+    }
+
+    private void journal(Journal.RecordWriter record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    private void sync() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    private Film find(long id) {
+        Film film = byId.get(id);
+        if (film != null || snapshot == null) {
+            return film;
+        }
+        return locks.withLock(id, () -> {
+            MappedSnapshot source = snapshot;
+            Film restored = byId.get(id);
+            if (restored == null && source != null && !deletedWhileLoading.contains(id)) {
+                int index = source.indexOf(id);
+                if (index >= 0) {
+                    restored = readFilm(source, index);
+                    load(restored);
+                }
+            }
+            return restored;
+        });
+    }
+
+    private void loadAll(MappedSnapshot source) {
+        for (int i = 0; i < source.size(); i++) {
+            long id = source.id(i);
+            if (!byId.containsKey(id)) {
+                int index = i;
+                locks.withLock(id, () -> {
+                    if (!byId.containsKey(id) && !deletedWhileLoading.contains(id)) {
+                        load(readFilm(source, index));
+                    }
+                });
+            }
+        }
+    }
+
+    private void load(Film film) {
+        Film old = films.put(film.getId(), film);
+        byId.put(film.getId(), film);
+        if (old != null) {
+            filterIndex.remove(old);
+            searchIndex.remove(old);
+            indexLikes(old, false);
+            likeCount.add(-old.getLikes().size());
+        }
+        filterIndex.add(film);
+        searchIndex.add(film);
+        indexLikes(film, true);
+        popularityIndex.put(film.getId(), film.getLikes().size());
+        likeCount.add(film.getLikes().size());
+        idCounter.accumulateAndGet(film.getId() + idStep, Math::max);
+    }
+
+    private boolean unload(long id) {
+        Film film = find(id);
+        if (snapshot != null) {
+            deletedWhileLoading.add(id);
+        }
+        if (film == null) {
+            return false;
+        }
+        films.remove(id);
+        byId.remove(id);
+        filterIndex.remove(film);
+        searchIndex.remove(film);
+        indexLikes(film, false);
+        popularityIndex.remove(id);
+        trendingIndex.remove(id);
+        likeCount.add(-film.getLikes().size());
+        return true;
+    }
+
+    private void openSnapshot(Path file) throws IOException {
+        MappedSnapshot source = MappedSnapshot.open(file);
+        idCounter.set(source.nextId());
+        snapshot = source;
+    }
+
+    private void replay(DataInput in) throws IOException {
+        switch (in.readByte()) {
+            case CREATED -> load(readFilm(in));
+            case UPDATED -> {
+                Film fields = new Film();
+                readFields(in, fields);
+                Film film = find(fields.getId());
+                if (film != null) {
+                    filterIndex.remove(film);
+                    searchIndex.remove(film);
+                    film.setName(fields.getName());
+                    film.setDescription(fields.getDescription());
+                    film.setReleaseDate(fields.getReleaseDate());
+                    film.setDuration(fields.getDuration());
+                    filterIndex.add(film);
+                    searchIndex.add(film);
+                }
+            }
+            case DELETED -> unload(in.readLong());
+            case LIKED -> replayLike(find(in.readLong()), in.readLong(), Long.MIN_VALUE);
+            case UNLIKED -> replayUnlike(find(in.readLong()), in.readLong());
+            case LIKED_AT -> replayLike(find(in.readLong()), in.readLong(), in.readLong());
+            case UNLIKED_AT -> {
+                replayUnlike(find(in.readLong()), in.readLong());
+                in.readLong();
+            }
+            default -> throw new IOException("Неизвестный тип записи журнала фильмов");
+        }
+    }
+
+    private void replayLike(Film film, long userId, long likedAt) {
+        if (film != null && film.getLikes().add(userId)) {
+            indexLike(film.getId(), userId);
+            popularityIndex.put(film.getId(), film.getLikes().size());
+            if (likedAt != Long.MIN_VALUE) {
+                trendingIndex.like(film.getId(), userId, likedAt);
+            }
+            likeCount.increment();
+        }
+    }
+
+    private void replayUnlike(Film film, long userId) {
+        if (film != null && film.getLikes().remove(userId)) {
+            unindexLike(film.getId(), userId);
+            popularityIndex.put(film.getId(), film.getLikes().size());
+            trendingIndex.unlike(film.getId(), userId);
+            likeCount.decrement();
+        }
+    }
+
+    private static Film readFilm(MappedSnapshot source, int index) {
+        try {
+            Film film = new Film();
+            readFields(source.fields(index), film);
+            film.setLikes(LongIdSet.of(source.adjacency(index)));
+            return film;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
+
+    private static void writeFilm(DataOutput out, Film film) throws IOException {
+        writeFields(out, film);
+        Journal.writeIds(out, film.getLikes().toSortedArray());
+    }
+
+    private static Film readFilm(DataInput in) throws IOException {
+        Film film = new Film();
+        readFields(in, film);
+        film.setLikes(LongIdSet.of(Journal.readIds(in)));
+        return film;
+    }
+
+    private static void writeFields(DataOutput out, Film film) throws IOException {
+        out.writeLong(film.getId());
+        Journal.writeString(out, film.getName());
+        Journal.writeString(out, film.getDescription());
+        out.writeLong(film.getReleaseDate() == null ? Long.MIN_VALUE : film.getReleaseDate().toEpochDay());
+        out.writeInt(film.getDuration());
+    }
+
+    private static void readFields(DataInput in, Film film) throws IOException {
+        film.setId(in.readLong());
+        film.setName(Journal.readString(in));
+        film.setDescription(Journal.readString(in));
+        long releaseDate = in.readLong();
+        film.setReleaseDate(releaseDate == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(releaseDate));
+        film.setDuration(in.readInt());
+    }
+
+    /**
+     * Film with its like count read once, for the top-K heaps of {@link #findPopular(int, FilmFilter)} and
+     * {@link #search}.
+     */
+    private record Ranked(Film film, int likes) {
+        static final Comparator<Ranked> ORDER = Comparator.comparingInt(Ranked::likes).reversed()
+                .thenComparingLong(ranked -> ranked.film().getId());
+
+        /**
+         * Keeps {@code film} in {@code top}, a heap with the worst entry first, if it is among the best {@code count}.
+         */
+        static void offer(PriorityQueue<Ranked> top, Film film, int count) {
+            Ranked ranked = new Ranked(film, film.getLikes().size());
+            if (top.size() < count) {
+                top.add(ranked);
+            } else if (ORDER.compare(ranked, top.peek()) < 0) {
+                top.poll();
+                top.add(ranked);
+            }
+        }
+
+        static List<Film> sorted(PriorityQueue<Ranked> top) {
+            List<Ranked> ranked = new ArrayList<>(top);
+            ranked.sort(ORDER);
+            List<Film> result = new ArrayList<>(ranked.size());
+            ranked.forEach(entry -> result.add(entry.film()));
+            return result;
+        }
+    }
+
+    private Film getExisting(Long filmId) {
+        Film film = find(filmId);
+        if (film == null) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        }
+        return film;
+    }
 }
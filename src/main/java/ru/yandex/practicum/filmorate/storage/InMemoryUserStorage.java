@@ -1,128 +1,611 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import ch.qos.logback.classic.Level;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
-@Component
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
-    private Long idCounter = 1L;
+    private static final byte CREATED = 1;
+    private static final byte UPDATED = 2;
+    private static final byte DELETED = 3;
+    private static final byte FRIEND_ADDED = 4;
+    private static final byte FRIEND_REMOVED = 5;
+
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    /**
+     * Same users by id for point lookups: a hash probe instead of a skip-list walk, which dominates traversals
+     * that load thousands of friends.
+     */
+    private final Map<Long, User> byId = new ConcurrentHashMap<>();
+    private final UniqueIndex emails;
+    private final UniqueIndex logins;
+    private final StripedLock locks = new StripedLock();
+    private final AtomicLong idCounter;
+    private final int idStep;
+    private final LongAdder friendLinkCount = new LongAdder();
+    private final Journal journal;
+    private final LongIdSet deletedWhileLoading = new LongIdSet();
+    private volatile MappedSnapshot snapshot;
+    private volatile CompletableFuture<Void> loaded = CompletableFuture.completedFuture(null);
+
+    public InMemoryUserStorage() {
+        this(null);
+    }
+
+    /**
+     * Storage that writes every change to {@code journal}; call {@link #recover()} before use.
+     */
+    public InMemoryUserStorage(Journal journal) {
+        this(journal, 1L, 1, emailIndex(), loginIndex());
+    }
+
+    /**
+     * Storage without a journal that hands out ids {@code firstId}, {@code firstId + idStep}, ...; one shard of
+     * {@link ShardedUserStorage}. Emails and logins are claimed in indexes shared by all shards.
+     */
+    InMemoryUserStorage(long firstId, int idStep, UniqueIndex emails, UniqueIndex logins) {
+        this(null, firstId, idStep, emails, logins);
+    }
+
+    private InMemoryUserStorage(Journal journal, long firstId, int idStep, UniqueIndex emails, UniqueIndex logins) {
+        this.journal = journal;
+        this.idCounter = new AtomicLong(firstId);
+        this.idStep = idStep;
+        this.emails = emails;
+        this.logins = logins;
+    }
+
+    static UniqueIndex emailIndex() {
+        return new UniqueIndex("Имейл");
+    }
+
+    static UniqueIndex loginIndex() {
+        return new UniqueIndex("Логин");
+    }
 
     @Override
     public Collection<User> findAll() {
+        awaitLoaded();
         return users.values();
     }
 
     @Override
     public User create(User user) {
-        log.info("Проверка условий на создание пользователя");
-        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
-                .setLevel(Level.WARN);
-        if (user.getEmail() == null || user.getEmail().isBlank() || !(user.getEmail().contains("@"))) {
-            log.error("Ошибка при заполнении email");
-            throw new ValidationException("Имейл должен быть указан и содержать символ @");
+        awaitLoaded();
+        claim(user);
+        insert(user);
+        sync();
+        log.debug("Пользователь добавлен: id={}", user.getId());
+        return user;
+    }
+
+    @Override
+    public List<User> createAll(List<User> newUsers) {
+        awaitLoaded();
+        List<User> claimed = new ArrayList<>(newUsers.size());
+        try {
+            for (User user : newUsers) {
+                claim(user);
+                claimed.add(user);
+            }
+        } catch (ConflictException e) {
+            claimed.forEach(this::release);
+            throw e;
         }
-        if (user.getLogin() == null || user.getLogin().isBlank()) {
-            log.error("Ошибка при заполнении login");
-            throw new ValidationException("Логин не может быть пустым и содержать пробелы");
+        newUsers.forEach(this::insert);
+        sync();
+        log.debug("Пользователи добавлены: {}", newUsers.size());
+        return newUsers;
+    }
+
+    @Override
+    public User update(User newUser) {
+        if (newUser.getEmail() != null || newUser.getLogin() != null) {
+            awaitLoaded();
         }
-        if (user.getName() == null) {
-            log.info("Если имя пустое, то присваиваем логин");
-            user.setName(user.getLogin());
-        } else {
-            user.setName(user.getName());
+        User updated = locks.withLock(newUser.getId(), () -> {
+            User oldUser = find(newUser.getId());
+            if (oldUser == null) {
+                log.warn("Пользователь с id = {} не найден", newUser.getId());
+                throw new NotFoundException("Пользователь с id = " + newUser.getId() + " не найден");
+            }
+            claim(oldUser.getId(), newUser.getEmail(), newUser.getLogin());
+            if (newUser.getEmail() != null) {
+                emails.replace(oldUser.getEmail(), newUser.getEmail(), oldUser.getId());
+                oldUser.setEmail(newUser.getEmail());
+            }
+            if (newUser.getLogin() != null) {
+                logins.replace(oldUser.getLogin(), newUser.getLogin(), oldUser.getId());
+                oldUser.setLogin(newUser.getLogin());
+            }
+            if (newUser.getName() != null) {
+                oldUser.setName(newUser.getName());
+            }
+            if (newUser.getBirthday() != null) {
+                oldUser.setBirthday(newUser.getBirthday());
+            }
+            journal(out -> {
+                out.writeByte(UPDATED);
+                writeFields(out, oldUser);
+            });
+            return oldUser;
+        });
+        sync();
+        log.debug("Пользователь обновлен: id={}", updated.getId());
+        return updated;
+    }
+
+    @Override
+    public void delete(Long id) {
+        remove(id);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(find(id));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        awaitLoaded();
+        return findByIndex(emails, email);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        awaitLoaded();
+        return findByIndex(logins, login);
+    }
+
+    @Override
+    public List<User> findPage(Long after, int limit) {
+        awaitLoaded();
+        List<User> page = new ArrayList<>(limit);
+        Iterator<User> iterator = users.tailMap(after == null ? Long.MIN_VALUE : after, false).values().iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
         }
-        if (user.getBirthday() == null || user.getBirthday().isAfter(LocalDate.now())) {
-            log.error("Ошибка при заполнении birthday");
-            throw new ValidationException("Дата рождения не может быть в будущем");
+        return page;
+    }
 
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        List<User> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = find(id);
+            if (user != null) {
+                result.add(user);
+            }
         }
+        return result;
+    }
 
-        log.info("Создаем нового пользователя!");
-        user.setId(idCounter++);
-        user.setEmail(user.getEmail());
-        user.setLogin(user.getLogin());
-        user.setBirthday(user.getBirthday());
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        locks.withLocks(userId, friendId, () -> link(userId, friendId));
+        sync();
+    }
 
-        users.put(user.getId(), user);
-        log.info("Новый пользователь добавлен!");
-        return user;
+    @Override
+    public void addFriends(Map<Long, LongIdSet> friendsByUser) {
+        friendsByUser.forEach((userId, friendIds) -> {
+            for (Long friendId : friendIds) {
+                locks.withLocks(userId, friendId, () -> link(userId, friendId));
+            }
+        });
+        sync();
     }
 
     @Override
-    public User update(User newUser) {
-        log.info("Проверка условий на обновление пользователя");
-        if (newUser.getId() == null) {
-            log.error("Пустой id");
-            throw new ValidationException("Id должен быть указан");
+    public void removeFriend(Long userId, Long friendId) {
+        locks.withLocks(userId, friendId, () -> {
+            User user = getExisting(userId);
+            User friend = getExisting(friendId);
+            if (user.getFriends().remove(friendId)) {
+                friendLinkCount.decrement();
+            }
+            if (friend.getFriends().remove(userId)) {
+                friendLinkCount.decrement();
+            }
+            journal(out -> {
+                out.writeByte(FRIEND_REMOVED);
+                out.writeLong(userId);
+                out.writeLong(friendId);
+            });
+        });
+        sync();
+    }
+
+    @Override
+    public void removeFriendReferences(Long deletedId, Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            unfriend(deletedId, userId);
         }
+        sync();
+    }
 
-        log.info("Проверка наличия пользователя");
-        if (users.containsKey(newUser.getId())) {
-            User oldUser = users.get(newUser.getId());
+    /**
+     * Deletes the user and removes its id from the friends of its friends in this storage, in time proportional
+     * to the number of friends. The user is unloaded first, so no new friendship can start meanwhile. Returns
+     * the ids of the user's friends, for {@link ShardedUserStorage} to clean up the other shards.
+     */
+    LongIdSet remove(long id) {
+        User removed = locks.withLock(id, () -> {
+            User user = unload(id);
+            if (user == null) {
+                throw new NotFoundException("Пользователь с id = " + id + " не найден");
+            }
+            journal(out -> {
+                out.writeByte(DELETED);
+                out.writeLong(id);
+            });
+            return user;
+        });
+        for (long friendId : removed.getFriends().toIdArray()) {
+            unfriend(id, friendId);
+        }
+        sync();
+        log.debug("Пользователь удален: id={}, друзей={}", id, removed.getFriends().size());
+        return removed.getFriends();
+    }
 
-            log.info("Проверка и обновление email");
-            if (newUser.getEmail() != null) {
-                if (newUser.getEmail().isBlank()) {
-                    log.error("Ошибка при обновлении email: не указан");
-                    throw new ValidationException("Имейл должен быть указан");
-                }
-                oldUser.setEmail(newUser.getEmail());
+    /**
+     * Adds {@code friendId} to the friends of {@code userId} only, without a journal record. Used by
+     * {@link ShardedUserStorage} to link users of different shards with one call on each shard.
+     */
+    void addFriendOneWay(long userId, long friendId) {
+        locks.withLock(userId, () -> {
+            if (getExisting(userId).getFriends().add(friendId)) {
+                friendLinkCount.increment();
             }
+        });
+    }
 
-            log.info("Проверка и обновление login");
-            if (newUser.getLogin() != null) {
-                if (newUser.getLogin().isBlank()) {
-                    log.error("Ошибка при обновлении login");
-                    throw new ValidationException("Логин не может содержать пробелы");
+    /**
+     * Removes {@code friendId} from the friends of {@code userId} only, without a journal record.
+     */
+    void removeFriendOneWay(long userId, long friendId) {
+        locks.withLock(userId, () -> {
+            if (getExisting(userId).getFriends().remove(friendId)) {
+                friendLinkCount.decrement();
+            }
+        });
+    }
+
+    @Override
+    public long count() {
+        awaitLoaded();
+        return users.size();
+    }
+
+    @Override
+    public long countFriendLinks() {
+        awaitLoaded();
+        return friendLinkCount.sum();
+    }
+
+    /**
+     * Maps the latest snapshot and replays the journal written after it. Users and their friend lists are then
+     * served straight from the mapped file on first access while a background thread loads the rest; scans and
+     * counts wait for it to finish.
+     */
+    public void recover() {
+        journal.open(this::openSnapshot, this::replay);
+        MappedSnapshot source = snapshot;
+        if (source == null) {
+            log.info("Пользователи восстановлены: {}", users.size());
+            return;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        loaded = future;
+        Thread.ofPlatform().name("users-loader").daemon().start(() -> {
+            try {
+                loadAll(source);
+                snapshot = null;
+                future.complete(null);
+                log.info("Пользователи восстановлены: {}", users.size());
+            } catch (RuntimeException e) {
+                log.error("Не удалось загрузить снимок пользователей", e);
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot of all users while writes continue; records journaled meanwhile are replayed over it.
+     */
+    public void snapshot() {
+        awaitLoaded();
+        journal.snapshot(file -> {
+            try (MappedSnapshot.Writer writer = new MappedSnapshot.Writer(file)) {
+                long nextId = idCounter.get();
+                for (User user : users.values()) {
+                    writer.add(user.getId(), user.getFriends().toSortedArray(), out -> writeFields(out, user));
                 }
-                oldUser.setLogin(newUser.getLogin());
+                writer.finish(nextId);
             }
+        });
+    }
 
-            log.info("Проверка и обновление name");
-            if (newUser.getName() != null) {
-                oldUser.setName(newUser.getName());
+    /**
+     * Waits until every user of the snapshot is on the heap.
+     */
+    public void awaitLoaded() {
+        loaded.join();
+    }
+
+    /**
+     * Gives the user an id and claims its email and login, all or nothing.
+     */
+    private void claim(User user) {
+        user.setId(idCounter.getAndAdd(idStep));
+        claim(user.getId(), user.getEmail(), user.getLogin());
+    }
+
+    private void claim(long id, String email, String login) {
+        boolean emailClaimed = emails.claim(email, id);
+        try {
+            logins.claim(login, id);
+        } catch (ConflictException e) {
+            if (emailClaimed) {
+                emails.release(email, id);
             }
+            throw e;
+        }
+    }
 
-            log.info("Проверка и обновление birthday");
-            if (newUser.getBirthday() != null) {
-                if (newUser.getBirthday().isAfter(LocalDate.now())) {
-                    log.error("Ошибка при обновлении birthday");
-                    throw new ValidationException("Дата рождения не может быть в будущем");
+    private void release(User user) {
+        emails.release(user.getEmail(), user.getId());
+        logins.release(user.getLogin(), user.getId());
+    }
+
+    private Optional<User> findByIndex(UniqueIndex index, String value) {
+        Long id = index.find(value);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    /**
+     * Stores a user whose id, email and login are already claimed.
+     */
+    private void insert(User user) {
+        if (user.getName() == null) {
+            user.setName(user.getLogin());
+        }
+        long id = user.getId();
+        user.setFriends(LongIdSet.copyOf(user.getFriends()));
+        locks.withLock(id, () -> {
+            users.put(id, user);
+            byId.put(id, user);
+            friendLinkCount.add(user.getFriends().size());
+            journal(out -> {
+                out.writeByte(CREATED);
+                writeUser(out, user);
+            });
+        });
+    }
+
+    private void link(long userId, long friendId) {
+        User user = getExisting(userId);
+        User friend = getExisting(friendId);
+        if (user.getFriends().add(friendId)) {
+            friendLinkCount.increment();
+        }
+        if (friend.getFriends().add(userId)) {
+            friendLinkCount.increment();
+        }
+        journal(out -> {
+            out.writeByte(FRIEND_ADDED);
+            out.writeLong(userId);
+            out.writeLong(friendId);
+        });
+    }
+
+    private void unfriend(long deletedId, long userId) {
+        locks.withLocks(deletedId, userId, () -> {
+            User user = find(userId);
+            if (user != null && user.getFriends().remove(deletedId)) {
+                friendLinkCount.decrement();
+                journal(out -> {
+                    out.writeByte(FRIEND_REMOVED);
+                    out.writeLong(userId);
+                    out.writeLong(deletedId);
+                });
+            }
+        });
+    }
+
+    private void journal(Journal.RecordWriter record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    private void sync() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    private User find(long id) {
+        User user = byId.get(id);
+        if (user != null || snapshot == null) {
+            return user;
+        }
+        return locks.withLock(id, () -> {
+            MappedSnapshot source = snapshot;
+            User restored = users.get(id);
+            if (restored == null && source != null && !deletedWhileLoading.contains(id)) {
+                int index = source.indexOf(id);
+                if (index >= 0) {
+                    restored = readUser(source, index);
+                    load(restored);
                 }
-                oldUser.setBirthday(newUser.getBirthday());
             }
+            return restored;
+        });
+    }
 
-            log.info("Пользователь обновлен!");
-            return oldUser;
+    private void loadAll(MappedSnapshot source) {
+        for (int i = 0; i < source.size(); i++) {
+            long id = source.id(i);
+            if (!users.containsKey(id)) {
+                int index = i;
+                locks.withLock(id, () -> {
+                    if (!users.containsKey(id) && !deletedWhileLoading.contains(id)) {
+                        load(readUser(source, index));
+                    }
+                });
+            }
         }
-        log.error("Пользователь с id = {} не найден", newUser.getId());
-        throw new NotFoundException("Пользователь с id = " + newUser.getId() + " не найден");
     }
 
-    @Override
-    public void delete(Long id) {
-        if (!users.containsKey(id)) {
-            throw new NotFoundException("Пользователь с id = " + id + " не найден");
+    private void load(User user) {
+        User old = users.put(user.getId(), user);
+        byId.put(user.getId(), user);
+        if (old != null) {
+            release(old);
+            friendLinkCount.add(-old.getFriends().size());
+        }
+        emails.put(user.getEmail(), user.getId());
+        logins.put(user.getLogin(), user.getId());
+        friendLinkCount.add(user.getFriends().size());
+        idCounter.accumulateAndGet(user.getId() + idStep, Math::max);
+    }
+
+    private User unload(long id) {
+        User user = find(id);
+        if (snapshot != null) {
+            deletedWhileLoading.add(id);
+        }
+        if (user == null) {
+            return null;
         }
         users.remove(id);
+        byId.remove(id);
+        release(user);
+        friendLinkCount.add(-user.getFriends().size());
+        return user;
     }
 
-    @Override
-    public Optional<User> findById(Long id) {
-        return Optional.ofNullable(users.get(id));
+    private void openSnapshot(Path file) throws IOException {
+        MappedSnapshot source = MappedSnapshot.open(file);
+        idCounter.set(source.nextId());
+        snapshot = source;
+    }
+
+    private void replay(DataInput in) throws IOException {
+        switch (in.readByte()) {
+            case CREATED -> load(readUser(in));
+            case UPDATED -> {
+                User fields = new User();
+                readFields(in, fields);
+                User user = find(fields.getId());
+                if (user != null) {
+                    emails.put(fields.getEmail(), user.getId());
+                    emails.replace(user.getEmail(), fields.getEmail(), user.getId());
+                    logins.put(fields.getLogin(), user.getId());
+                    logins.replace(user.getLogin(), fields.getLogin(), user.getId());
+                    user.setEmail(fields.getEmail());
+                    user.setLogin(fields.getLogin());
+                    user.setName(fields.getName());
+                    user.setBirthday(fields.getBirthday());
+                }
+            }
+            case DELETED -> unload(in.readLong());
+            case FRIEND_ADDED -> {
+                long userId = in.readLong();
+                long friendId = in.readLong();
+                replayFriend(find(userId), friendId, true);
+                replayFriend(find(friendId), userId, true);
+            }
+            case FRIEND_REMOVED -> {
+                long userId = in.readLong();
+                long friendId = in.readLong();
+                replayFriend(find(userId), friendId, false);
+                replayFriend(find(friendId), userId, false);
+            }
+            default -> throw new IOException("Неизвестный тип записи журнала пользователей");
+        }
+    }
+
+    private void replayFriend(User user, long friendId, boolean added) {
+        if (user == null) {
+            return;
+        }
+        if (added && user.getFriends().add(friendId)) {
+            friendLinkCount.increment();
+        } else if (!added && user.getFriends().remove(friendId)) {
+            friendLinkCount.decrement();
+        }
+    }
+
+    private static User readUser(MappedSnapshot source, int index) {
+        try {
+            User user = new User();
+            readFields(source.fields(index), user);
+            user.setFriends(LongIdSet.of(source.adjacency(index)));
+            return user;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeUser(DataOutput out, User user) throws IOException {
+        writeFields(out, user);
+        Journal.writeIds(out, user.getFriends().toSortedArray());
+    }
+
+    private static User readUser(DataInput in) throws IOException {
+        User user = new User();
+        readFields(in, user);
+        user.setFriends(LongIdSet.of(Journal.readIds(in)));
+        return user;
+    }
+
+    private static void writeFields(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getId());
+        Journal.writeString(out, user.getEmail());
+        Journal.writeString(out, user.getLogin());
+        Journal.writeString(out, user.getName());
+        out.writeLong(user.getBirthday() == null ? Long.MIN_VALUE : user.getBirthday().toEpochDay());
+    }
+
+    private static void readFields(DataInput in, User user) throws IOException {
+        user.setId(in.readLong());
+        user.setEmail(Journal.readString(in));
+        user.setLogin(Journal.readString(in));
+        user.setName(Journal.readString(in));
+        long birthday = in.readLong();
+        user.setBirthday(birthday == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(birthday));
+    }
+
+    private User getExisting(Long id) {
+        User user = find(id);
+        if (user == null) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден");
+        }
+        return user;
     }
 }
@@ -0,0 +1,387 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * {@link FilmStorage} on top of the {@code films} and {@code film_likes} tables. Likes of a batch of films are
+ * read with one {@code IN} query; {@code films.like_count} is kept in step with the likes so popular films are
+ * one indexed {@code ORDER BY like_count DESC, id} read. Every like row carries {@code liked_at}, so trending
+ * films are counted over the likes given within the window that are still in place.
+ */
+@Slf4j
+public class JdbcFilmStorage implements FilmStorage {
+    static final int IN_LIST_SIZE = 1000;
+
+    private static final String INSERT_FILM = "INSERT INTO films (name, description, release_date, duration, "
+            + "like_count) VALUES (:name, :description, :releaseDate, :duration, :likeCount)";
+    private static final String SELECT_FILMS = "SELECT id, name, description, release_date, duration FROM films ";
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> Film.builder()
+            .id(rs.getLong("id"))
+            .name(rs.getString("name"))
+            .description(rs.getString("description"))
+            .releaseDate(rs.getDate("release_date").toLocalDate())
+            .duration(rs.getInt("duration"))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+
+    public JdbcFilmStorage(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactions) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        List<Film> films = jdbc.query(SELECT_FILMS + "ORDER BY id", FILM_MAPPER);
+        Map<Long, Film> byId = new HashMap<>();
+        films.forEach(film -> byId.put(film.getId(), film));
+        jdbc.query("SELECT film_id, user_id FROM film_likes", rs -> {
+            Film film = byId.get(rs.getLong("film_id"));
+            if (film != null) {
+                film.getLikes().add(rs.getLong("user_id"));
+            }
+        });
+        return films;
+    }
+
+    @Override
+    public Film create(Film film) {
+        LongIdSet likes = LongIdSet.copyOf(film.getLikes());
+        transactions.executeWithoutResult(status -> {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbc.update(INSERT_FILM, filmRow(film, likes), keys, new String[]{"id"});
+            film.setId(Objects.requireNonNull(keys.getKey()).longValue());
+            insertLikes(Map.of(film.getId(), likes));
+        });
+        film.setLikes(likes);
+        log.debug("Фильм добавлен: id={}", film.getId());
+        return film;
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> newFilms) {
+        newFilms.forEach(film -> film.setLikes(LongIdSet.copyOf(film.getLikes())));
+        transactions.executeWithoutResult(status -> {
+            SqlParameterSource[] rows = new SqlParameterSource[newFilms.size()];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = filmRow(newFilms.get(i), newFilms.get(i).getLikes());
+            }
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbc.batchUpdate(INSERT_FILM, rows, keys, new String[]{"id"});
+            Map<Long, LongIdSet> likes = new HashMap<>();
+            for (int i = 0; i < rows.length; i++) {
+                Film film = newFilms.get(i);
+                film.setId(((Number) keys.getKeyList().get(i).get("id")).longValue());
+                likes.put(film.getId(), film.getLikes());
+            }
+            insertLikes(likes);
+        });
+        log.debug("Фильмы добавлены: {}", newFilms.size());
+        return newFilms;
+    }
+
+    @Override
+    public Film update(Film newFilm) {
+        int updated = jdbc.update("UPDATE films SET name = COALESCE(:name, name), "
+                + "description = COALESCE(:description, description), "
+                + "release_date = COALESCE(:releaseDate, release_date), "
+                + "duration = CASE WHEN :duration = -1 THEN duration ELSE :duration END WHERE id = :id",
+                new MapSqlParameterSource()
+                        .addValue("id", newFilm.getId())
+                        .addValue("name", newFilm.getName())
+                        .addValue("description", newFilm.getDescription())
+                        .addValue("releaseDate", newFilm.getReleaseDate())
+                        .addValue("duration", newFilm.getDuration()));
+        if (updated == 0) {
+            log.warn("Фильм с id = {} не найден", newFilm.getId());
+            throw new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден");
+        }
+        log.debug("Фильм обновлен: id={}", newFilm.getId());
+        return getExisting(newFilm.getId());
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (jdbc.update("DELETE FROM films WHERE id = :id", Map.of("id", id)) == 0) {
+            throw new NotFoundException("Фильм с id = " + id + " не найден");
+        }
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        List<Film> films = jdbc.query(SELECT_FILMS + "WHERE id = :id", Map.of("id", id), FILM_MAPPER);
+        if (films.isEmpty()) {
+            return Optional.empty();
+        }
+        Film film = films.getFirst();
+        jdbc.query("SELECT user_id FROM film_likes WHERE film_id = :id", Map.of("id", id),
+                rs -> {
+                    film.getLikes().add(rs.getLong(1));
+                });
+        return Optional.of(film);
+    }
+
+    @Override
+    public List<Film> findPage(Long after, int limit) {
+        List<Film> films = jdbc.query(SELECT_FILMS + "WHERE id > :after ORDER BY id LIMIT :limit",
+                Map.of("after", after == null ? Long.MIN_VALUE : after, "limit", limit), FILM_MAPPER);
+        return withLikes(films);
+    }
+
+    @Override
+    public List<Film> findAllByIds(Collection<Long> ids) {
+        Map<Long, Film> byId = new HashMap<>();
+        List<Long> idList = List.copyOf(ids);
+        for (int from = 0; from < idList.size(); from += IN_LIST_SIZE) {
+            List<Long> chunk = idList.subList(from, Math.min(idList.size(), from + IN_LIST_SIZE));
+            jdbc.query(SELECT_FILMS + "WHERE id IN (:ids)", Map.of("ids", chunk), FILM_MAPPER)
+                    .forEach(film -> byId.put(film.getId(), film));
+        }
+        List<Film> result = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            Film film = byId.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return withLikes(result);
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        transactions.executeWithoutResult(status -> {
+            lockExisting(List.of(filmId));
+            int inserted;
+            try {
+                inserted = jdbc.update("INSERT INTO film_likes (film_id, user_id) SELECT :filmId, :userId "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = :filmId AND user_id = :userId)",
+                        Map.of("filmId", filmId, "userId", userId));
+            } catch (DuplicateKeyException e) {
+                inserted = 0;
+            } catch (DataIntegrityViolationException e) {
+                throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+            }
+            if (inserted > 0) {
+                jdbc.update("UPDATE films SET like_count = like_count + 1 WHERE id = :id", Map.of("id", filmId));
+            }
+        });
+    }
+
+    @Override
+    public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+        transactions.executeWithoutResult(status -> {
+            List<Long> filmIds = lockExisting(likesByFilm.keySet());
+            try {
+                insertLikes(likesByFilm);
+            } catch (DataIntegrityViolationException e) {
+                throw new NotFoundException("Лайки ссылаются на несуществующего пользователя");
+            }
+            recountLikes(filmIds);
+        });
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        transactions.executeWithoutResult(status -> {
+            lockExisting(List.of(filmId));
+            int removed = jdbc.update("DELETE FROM film_likes WHERE film_id = :filmId AND user_id = :userId",
+                    Map.of("filmId", filmId, "userId", userId));
+            if (removed == 0) {
+                throw new NotFoundException("Лайк от пользователя с id = " + userId + " для фильма с id = " + filmId + " не найден");
+            }
+            jdbc.update("UPDATE films SET like_count = like_count - 1 WHERE id = :id", Map.of("id", filmId));
+        });
+    }
+
+    @Override
+    public void removeUserLikes(Long userId) {
+        transactions.executeWithoutResult(status -> {
+            List<Long> filmIds = jdbc.queryForList("SELECT film_id FROM film_likes WHERE user_id = :userId "
+                    + "ORDER BY film_id", Map.of("userId", userId), Long.class);
+            jdbc.update("DELETE FROM film_likes WHERE user_id = :userId", Map.of("userId", userId));
+            recountLikes(filmIds);
+        });
+    }
+
+    @Override
+    public long[] findLikedFilmIds(Long userId) {
+        return jdbc.queryForList("SELECT film_id FROM film_likes WHERE user_id = :userId ORDER BY film_id",
+                Map.of("userId", userId), Long.class).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        List<Film> films = jdbc.query(SELECT_FILMS + "ORDER BY like_count DESC, id LIMIT :count",
+                Map.of("count", count), FILM_MAPPER);
+        return withLikes(films);
+    }
+
+    @Override
+    public List<Film> findPopular(int count, FilmFilter filter) {
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("count", count);
+        if (filter.year() != null) {
+            conditions.add("release_date >= :from AND release_date < :to");
+            params.addValue("from", LocalDate.of(filter.year(), 1, 1));
+            params.addValue("to", LocalDate.of(filter.year() + 1, 1, 1));
+        }
+        if (filter.minDuration() != null) {
+            conditions.add("duration >= :minDuration");
+            params.addValue("minDuration", filter.minDuration());
+        }
+        if (filter.maxDuration() != null) {
+            conditions.add("duration <= :maxDuration");
+            params.addValue("maxDuration", filter.maxDuration());
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        List<Film> films = jdbc.query(SELECT_FILMS + where + "ORDER BY like_count DESC, id LIMIT :count",
+                params, FILM_MAPPER);
+        return withLikes(films);
+    }
+
+    /**
+     * Matches each query word as a substring of the lower-cased name and description; rows are scanned, as there is
+     * no full-text index behind it.
+     */
+    @Override
+    public List<Film> search(String query, int limit) {
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) {
+                String name = "word" + conditions.size();
+                conditions.add("LOWER(name || ' ' || description) LIKE :" + name);
+                params.addValue(name, "%" + word + "%");
+            }
+        }
+        if (conditions.isEmpty()) {
+            return List.of();
+        }
+        List<Film> films = jdbc.query(SELECT_FILMS + "WHERE " + String.join(" AND ", conditions)
+                + " ORDER BY like_count DESC, id LIMIT :limit", params, FILM_MAPPER);
+        return withLikes(films);
+    }
+
+    @Override
+    public List<Film> findTrending(TrendingWindow window, int count) {
+        List<Film> films = jdbc.query("SELECT f.id, f.name, f.description, f.release_date, f.duration FROM films f "
+                        + "JOIN (SELECT film_id, COUNT(*) AS likes FROM film_likes WHERE liked_at >= :since "
+                        + "GROUP BY film_id) t ON t.film_id = f.id ORDER BY t.likes DESC, f.id LIMIT :count",
+                Map.of("since", since(window), "count", count), FILM_MAPPER);
+        return withLikes(films);
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM films", Map.of(), Long.class);
+    }
+
+    @Override
+    public long countLikes() {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(like_count), 0) FROM films", Map.of(), Long.class);
+    }
+
+    /**
+     * Start of the window's oldest bucket, so the window moves by whole buckets as in {@link TrendingIndex}.
+     */
+    private static LocalDateTime since(TrendingWindow window) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(window.start(System.currentTimeMillis())),
+                ZoneId.systemDefault());
+    }
+
+    private static SqlParameterSource filmRow(Film film, LongIdSet likes) {
+        return new MapSqlParameterSource()
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("releaseDate", film.getReleaseDate())
+                .addValue("duration", film.getDuration())
+                .addValue("likeCount", likes.size());
+    }
+
+    private void insertLikes(Map<Long, LongIdSet> likesByFilm) {
+        List<SqlParameterSource> rows = new ArrayList<>();
+        likesByFilm.forEach((filmId, userIds) -> {
+            for (long userId : userIds.toSortedArray()) {
+                rows.add(new MapSqlParameterSource().addValue("filmId", filmId).addValue("userId", userId));
+            }
+        });
+        jdbc.batchUpdate("MERGE INTO film_likes (film_id, user_id) KEY (film_id, user_id) VALUES (:filmId, :userId)",
+                rows.toArray(SqlParameterSource[]::new));
+    }
+
+    private List<Film> withLikes(List<Film> films) {
+        Map<Long, Film> byId = new LinkedHashMap<>();
+        films.forEach(film -> byId.put(film.getId(), film));
+        List<Long> ids = List.copyOf(byId.keySet());
+        for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_LIST_SIZE));
+            jdbc.query("SELECT film_id, user_id FROM film_likes WHERE film_id IN (:ids)", Map.of("ids", chunk),
+                    rs -> {
+                        byId.get(rs.getLong("film_id")).getLikes().add(rs.getLong("user_id"));
+                    });
+        }
+        return films;
+    }
+
+    /**
+     * Sets {@code like_count} of the given films, in id order, to the number of their likes.
+     */
+    private void recountLikes(List<Long> filmIds) {
+        for (int from = 0; from < filmIds.size(); from += IN_LIST_SIZE) {
+            jdbc.update("UPDATE films SET like_count = (SELECT COUNT(*) FROM film_likes WHERE film_id = films.id) "
+                    + "WHERE id IN (:ids)",
+                    Map.of("ids", filmIds.subList(from, Math.min(filmIds.size(), from + IN_LIST_SIZE))));
+        }
+    }
+
+    /**
+     * Locks the rows of the given films in id order and returns the sorted ids.
+     */
+    private List<Long> lockExisting(Collection<Long> filmIds) {
+        List<Long> ids = filmIds.stream().sorted().distinct().toList();
+        for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_LIST_SIZE));
+            List<Long> found = jdbc.queryForList("SELECT id FROM films WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                    Map.of("ids", chunk), Long.class);
+            if (found.size() < chunk.size()) {
+                Long missing = chunk.stream().filter(id -> !found.contains(id)).findFirst().orElseThrow();
+                throw new NotFoundException("Фильм с id = " + missing + " не найден");
+            }
+        }
+        return ids;
+    }
+
+    private Film getExisting(Long filmId) {
+        return findById(filmId)
+                .orElseThrow(() -> new NotFoundException("Фильм с id = " + filmId + " не найден"));
+    }
+}
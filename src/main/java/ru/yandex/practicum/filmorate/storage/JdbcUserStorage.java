@@ -0,0 +1,331 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@link UserStorage} on top of the {@code users} and {@code friendships} tables. A friendship is stored as two
+ * rows written in one batch; friends of a batch of users are read with one {@code IN} query. Emails and logins are
+ * unique through indexes on their lower-cased copies {@code email_key} and {@code login_key}.
+ */
+@Slf4j
+public class JdbcUserStorage implements UserStorage {
+    private static final String SELECT_USERS = "SELECT id, email, login, name, birthday FROM users ";
+    private static final String INSERT_USER = "INSERT INTO users (email, login, name, birthday) "
+            + "VALUES (:email, :login, :name, :birthday)";
+    private static final String INSERT_FRIEND = "MERGE INTO friendships (user_id, friend_id) KEY (user_id, friend_id) "
+            + "VALUES (:userId, :friendId)";
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .email(rs.getString("email"))
+            .login(rs.getString("login"))
+            .name(rs.getString("name"))
+            .birthday(rs.getDate("birthday").toLocalDate())
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+
+    public JdbcUserStorage(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactions) {
+        this.jdbc = jdbc;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        List<User> users = jdbc.query(SELECT_USERS + "ORDER BY id", USER_MAPPER);
+        Map<Long, User> byId = new HashMap<>();
+        users.forEach(user -> byId.put(user.getId(), user));
+        jdbc.query("SELECT user_id, friend_id FROM friendships", rs -> {
+            User user = byId.get(rs.getLong("user_id"));
+            if (user != null) {
+                user.getFriends().add(rs.getLong("friend_id"));
+            }
+        });
+        return users;
+    }
+
+    @Override
+    public User create(User user) {
+        LongIdSet friends = LongIdSet.copyOf(user.getFriends());
+        try {
+            transactions.executeWithoutResult(status -> {
+                KeyHolder keys = new GeneratedKeyHolder();
+                jdbc.update(INSERT_USER, userRow(user), keys, new String[]{"id"});
+                user.setId(Objects.requireNonNull(keys.getKey()).longValue());
+                insertFriends(Map.of(user.getId(), friends), false);
+            });
+        } catch (DuplicateKeyException e) {
+            throw conflict(user);
+        }
+        user.setFriends(friends);
+        log.debug("Пользователь добавлен: id={}", user.getId());
+        return user;
+    }
+
+    @Override
+    public List<User> createAll(List<User> newUsers) {
+        newUsers.forEach(user -> user.setFriends(LongIdSet.copyOf(user.getFriends())));
+        try {
+            transactions.executeWithoutResult(status -> {
+                SqlParameterSource[] rows = new SqlParameterSource[newUsers.size()];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = userRow(newUsers.get(i));
+                }
+                KeyHolder keys = new GeneratedKeyHolder();
+                jdbc.batchUpdate(INSERT_USER, rows, keys, new String[]{"id"});
+                Map<Long, LongIdSet> friends = new HashMap<>();
+                for (int i = 0; i < rows.length; i++) {
+                    User user = newUsers.get(i);
+                    user.setId(((Number) keys.getKeyList().get(i).get("id")).longValue());
+                    friends.put(user.getId(), user.getFriends());
+                }
+                insertFriends(friends, false);
+            });
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Имейл или логин одного из пользователей уже используется");
+        }
+        log.debug("Пользователи добавлены: {}", newUsers.size());
+        return newUsers;
+    }
+
+    @Override
+    public User update(User newUser) {
+        int updated;
+        try {
+            updated = jdbc.update("UPDATE users SET email = COALESCE(:email, email), "
+                    + "login = COALESCE(:login, login), name = COALESCE(:name, name), "
+                    + "birthday = COALESCE(:birthday, birthday) WHERE id = :id",
+                    new MapSqlParameterSource()
+                            .addValue("id", newUser.getId())
+                            .addValue("email", newUser.getEmail())
+                            .addValue("login", newUser.getLogin())
+                            .addValue("name", newUser.getName())
+                            .addValue("birthday", newUser.getBirthday()));
+        } catch (DuplicateKeyException e) {
+            throw conflict(newUser);
+        }
+        if (updated == 0) {
+            log.warn("Пользователь с id = {} не найден", newUser.getId());
+            throw new NotFoundException("Пользователь с id = " + newUser.getId() + " не найден");
+        }
+        log.debug("Пользователь обновлен: id={}", newUser.getId());
+        return getExisting(newUser.getId());
+    }
+
+    /**
+     * Friendships and likes of the user are removed by the cascading foreign keys.
+     */
+    @Override
+    public void delete(Long id) {
+        if (jdbc.update("DELETE FROM users WHERE id = :id", Map.of("id", id)) == 0) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден");
+        }
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        List<User> users = jdbc.query(SELECT_USERS + "WHERE id = :id", Map.of("id", id), USER_MAPPER);
+        if (users.isEmpty()) {
+            return Optional.empty();
+        }
+        User user = users.getFirst();
+        jdbc.query("SELECT friend_id FROM friendships WHERE user_id = :id", Map.of("id", id),
+                rs -> {
+                    user.getFriends().add(rs.getLong(1));
+                });
+        return Optional.of(user);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return findByKey("email_key", email);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return findByKey("login_key", login);
+    }
+
+    @Override
+    public List<User> findPage(Long after, int limit) {
+        List<User> users = jdbc.query(SELECT_USERS + "WHERE id > :after ORDER BY id LIMIT :limit",
+                Map.of("after", after == null ? Long.MIN_VALUE : after, "limit", limit), USER_MAPPER);
+        return withFriends(users);
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        Map<Long, User> byId = new HashMap<>();
+        List<Long> idList = List.copyOf(ids);
+        for (int from = 0; from < idList.size(); from += JdbcFilmStorage.IN_LIST_SIZE) {
+            List<Long> chunk = idList.subList(from, Math.min(idList.size(), from + JdbcFilmStorage.IN_LIST_SIZE));
+            jdbc.query(SELECT_USERS + "WHERE id IN (:ids)", Map.of("ids", chunk), USER_MAPPER)
+                    .forEach(user -> byId.put(user.getId(), user));
+        }
+        List<User> result = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return withFriends(result);
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        transactions.executeWithoutResult(status -> {
+            lockExisting(List.of(userId, friendId));
+            jdbc.batchUpdate(INSERT_FRIEND, new SqlParameterSource[]{
+                    friendRow(userId, friendId),
+                    friendRow(friendId, userId)});
+        });
+    }
+
+    @Override
+    public void addFriends(Map<Long, LongIdSet> friendsByUser) {
+        Set<Long> ids = new HashSet<>(friendsByUser.keySet());
+        friendsByUser.values().forEach(ids::addAll);
+        transactions.executeWithoutResult(status -> {
+            lockExisting(ids);
+            insertFriends(friendsByUser, true);
+        });
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        transactions.executeWithoutResult(status -> {
+            lockExisting(List.of(userId, friendId));
+            jdbc.batchUpdate("DELETE FROM friendships WHERE user_id = :userId AND friend_id = :friendId",
+                    new SqlParameterSource[]{
+                            friendRow(userId, friendId),
+                            friendRow(friendId, userId)});
+        });
+    }
+
+    @Override
+    public void removeFriendReferences(Long deletedId, Collection<Long> userIds) {
+        List<Long> ids = List.copyOf(userIds);
+        for (int from = 0; from < ids.size(); from += JdbcFilmStorage.IN_LIST_SIZE) {
+            jdbc.update("DELETE FROM friendships WHERE friend_id = :friendId AND user_id IN (:ids)",
+                    Map.of("friendId", deletedId,
+                            "ids", ids.subList(from, Math.min(ids.size(), from + JdbcFilmStorage.IN_LIST_SIZE))));
+        }
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM users", Map.of(), Long.class);
+    }
+
+    @Override
+    public long countFriendLinks() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM friendships", Map.of(), Long.class);
+    }
+
+    private Optional<User> findByKey(String column, String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        List<User> users = jdbc.query(SELECT_USERS + "WHERE " + column + " = LOWER(TRIM(:value))",
+                Map.of("value", value), USER_MAPPER);
+        return users.isEmpty() ? Optional.empty() : Optional.of(withFriends(users).getFirst());
+    }
+
+    /**
+     * Names the field of {@code user} that the unique indexes rejected.
+     */
+    private ConflictException conflict(User user) {
+        Optional<User> holder = findByEmail(user.getEmail());
+        if (holder.isPresent() && !holder.get().getId().equals(user.getId())) {
+            return new ConflictException("Имейл " + user.getEmail() + " уже используется");
+        }
+        return new ConflictException("Логин " + user.getLogin() + " уже используется");
+    }
+
+    private static SqlParameterSource userRow(User user) {
+        if (user.getName() == null) {
+            user.setName(user.getLogin());
+        }
+        return new MapSqlParameterSource()
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+
+    private void insertFriends(Map<Long, LongIdSet> friendsByUser, boolean mutual) {
+        List<SqlParameterSource> rows = new ArrayList<>();
+        friendsByUser.forEach((userId, friendIds) -> {
+            for (long friendId : friendIds.toSortedArray()) {
+                rows.add(friendRow(userId, friendId));
+                if (mutual) {
+                    rows.add(friendRow(friendId, userId));
+                }
+            }
+        });
+        jdbc.batchUpdate(INSERT_FRIEND, rows.toArray(SqlParameterSource[]::new));
+    }
+
+    private static SqlParameterSource friendRow(long userId, long friendId) {
+        return new MapSqlParameterSource().addValue("userId", userId).addValue("friendId", friendId);
+    }
+
+    private List<User> withFriends(List<User> users) {
+        Map<Long, User> byId = new LinkedHashMap<>();
+        users.forEach(user -> byId.put(user.getId(), user));
+        List<Long> ids = List.copyOf(byId.keySet());
+        for (int from = 0; from < ids.size(); from += JdbcFilmStorage.IN_LIST_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + JdbcFilmStorage.IN_LIST_SIZE));
+            jdbc.query("SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids)", Map.of("ids", chunk),
+                    rs -> {
+                        byId.get(rs.getLong("user_id")).getFriends().add(rs.getLong("friend_id"));
+                    });
+        }
+        return users;
+    }
+
+    /**
+     * Locks the rows of the given users in id order.
+     */
+    private void lockExisting(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().sorted().distinct().toList();
+        for (int from = 0; from < ids.size(); from += JdbcFilmStorage.IN_LIST_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + JdbcFilmStorage.IN_LIST_SIZE));
+            List<Long> found = jdbc.queryForList("SELECT id FROM users WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                    Map.of("ids", chunk), Long.class);
+            if (found.size() < chunk.size()) {
+                Long missing = chunk.stream().filter(id -> !found.contains(id)).findFirst().orElseThrow();
+                throw new NotFoundException("Пользователь с id = " + missing + " не найден");
+            }
+        }
+    }
+
+    private User getExisting(Long id) {
+        return findById(id)
+                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + id + " не найден"));
+    }
+}
@@ -0,0 +1,487 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal split into numbered segments ({@code <name>-<generation>.log}).
+ * Records are framed as {@code [length][crc32c][payload]} and buffered in memory; a single flusher thread writes
+ * everything appended so far with one {@link FileChannel#force} (group commit), so concurrent writers share fsyncs.
+ * A snapshot {@code <name>-<generation>.snapshot} covers every segment older than its generation; its format is up to
+ * the storage. It is written while writers keep appending, so replayed records must be idempotent.
+ */
+@Slf4j
+public class Journal implements AutoCloseable {
+    private static final Pattern FILE_NAME = Pattern.compile("(.+)-(\\d{19})\\.(log|snapshot)");
+    private static final int MAX_PENDING_BYTES = 64 << 20;
+
+    private final Path dir;
+    private final String name;
+    private final boolean sync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private Buffer pending = new Buffer();
+    private Buffer writing = new Buffer();
+    private DataOutputStream pendingOut = new DataOutputStream(pending);
+    private long appendedSeq;
+    private long flushedSeq;
+    private IOException failure;
+    private boolean closed;
+
+    private FileChannel channel;
+    private long generation;
+    private Thread flusher;
+
+    /**
+     * @param sync whether {@link #sync()} waits for the records to be forced to disk
+     */
+    public Journal(Path dir, String name, boolean sync) {
+        this.dir = dir;
+        this.name = name;
+        this.sync = sync;
+    }
+
+    /**
+     * Feeds the latest snapshot and every record written after it to the readers, then opens a new segment
+     * for appending. Must be called once before {@link #append}.
+     */
+    public void open(SnapshotReader snapshotReader, RecordReader recordReader) {
+        try {
+            Files.createDirectories(dir);
+            long snapshot = latest("snapshot");
+            if (snapshot > 0) {
+                snapshotReader.read(file(snapshot, "snapshot"));
+            }
+            long last = snapshot;
+            for (long segment : generations("log")) {
+                if (segment >= snapshot) {
+                    replay(file(segment, "log"), recordReader);
+                }
+                last = Math.max(last, segment);
+            }
+            generation = last + 1;
+            channel = openSegment(generation);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал " + dir.resolve(name), e);
+        }
+        flusher = new Thread(this::flushLoop, "journal-" + name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Buffers one record and returns its sequence number. Callers append while holding the lock of the changed
+     * entity, so records of one entity are journaled in the order they were applied.
+     */
+    public long append(RecordWriter writer) {
+        lock.lock();
+        try {
+            while (pending.size() > MAX_PENDING_BYTES && failure == null && !closed) {
+                flushed.awaitUninterruptibly();
+            }
+            checkOpen();
+            int start = pending.size();
+            try {
+                pending.skip(Integer.BYTES * 2);
+                writer.write(pendingOut);
+            } catch (IOException | RuntimeException e) {
+                pending.truncate(start);
+                throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+            }
+            pending.frame(start);
+            appended.signal();
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is on disk. Returns immediately when the journal is not synchronous.
+     */
+    public void sync() {
+        if (!sync) {
+            return;
+        }
+        lock.lock();
+        try {
+            long target = appendedSeq;
+            while (flushedSeq < target && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (flushedSeq < target) {
+                throw new UncheckedIOException("Журнал " + name + " недоступен", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new segment and writes a snapshot that covers all older segments; the older files are deleted
+     * once the snapshot is safely on disk.
+     */
+    public void snapshot(SnapshotWriter snapshotWriter) {
+        snapshotLock.lock();
+        try {
+            long snapshot = rotate();
+            Path target = file(snapshot, "snapshot");
+            Path temp = dir.resolve(target.getFileName() + ".tmp");
+            snapshotWriter.write(temp);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                out.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (String kind : List.of("log", "snapshot")) {
+                for (long old : generations(kind)) {
+                    if (old < snapshot) {
+                        Files.deleteIfExists(file(old, kind));
+                    }
+                }
+            }
+            log.info("Снимок {} записан: поколение {}", name, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать снимок " + name, e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (flusher != null) {
+                flusher.join();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeIds(DataOutput out, long[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    public static long[] readIds(DataInput in) throws IOException {
+        long[] ids = new long[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readLong();
+        }
+        return ids;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            ioLock.lock();
+            try {
+                long target;
+                lock.lock();
+                try {
+                    if (pending.size() == 0) {
+                        continue;
+                    }
+                    target = appendedSeq;
+                    swap();
+                } finally {
+                    lock.unlock();
+                }
+                IOException error = write(writing);
+                lock.lock();
+                try {
+                    if (error != null) {
+                        failure = error;
+                        log.error("Ошибка записи журнала {}", name, error);
+                        flushed.signalAll();
+                        return;
+                    }
+                    flushedSeq = Math.max(flushedSeq, target);
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    private long rotate() throws IOException {
+        ioLock.lock();
+        try {
+            lock.lock();
+            try {
+                checkOpen();
+                swap();
+                IOException error = write(writing);
+                if (error != null) {
+                    failure = error;
+                    flushed.signalAll();
+                    throw error;
+                }
+                channel.close();
+                channel = openSegment(++generation);
+                flushedSeq = appendedSeq;
+                flushed.signalAll();
+                return generation;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void swap() {
+        Buffer full = pending;
+        pending = writing;
+        pendingOut = new DataOutputStream(pending);
+        writing = full;
+    }
+
+    private IOException write(Buffer buffer) {
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.bytes(), 0, buffer.size());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+            return null;
+        } catch (IOException e) {
+            return e;
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    private void replay(Path segment, RecordReader reader) throws IOException {
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment),
+                1 << 16))) {
+            CRC32C crc = new CRC32C();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException end) {
+                    break;
+                }
+                int checksum = in.readInt();
+                byte[] payload = in.readNBytes(length);
+                crc.reset();
+                crc.update(payload);
+                if (payload.length < length || (int) crc.getValue() != checksum) {
+                    log.warn("Журнал {} обрезан после {} записей", segment.getFileName(), records);
+                    break;
+                }
+                reader.read(new DataInputStream(new ByteArrayInputStream(payload)));
+                records++;
+            }
+        } catch (EOFException e) {
+            log.warn("Журнал {} обрезан после {} записей", segment.getFileName(), records);
+        }
+        log.debug("Журнал {} воспроизведен: записей={}", segment.getFileName(), records);
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return openChannel(file(segment, "log"));
+    }
+
+    /**
+     * Opens a new segment file for appending; tests override it to make writes fail.
+     */
+    protected FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Журнал " + name + " недоступен", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Журнал " + name + " закрыт");
+        }
+    }
+
+    private Path file(long segment, String kind) {
+        return dir.resolve(String.format("%s-%019d.%s", name, segment, kind));
+    }
+
+    private long latest(String kind) throws IOException {
+        List<Long> all = generations(kind);
+        return all.isEmpty() ? 0 : all.getLast();
+    }
+
+    private List<Long> generations(String kind) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(1).equals(name) && matcher.group(3).equals(kind)) {
+                    result.add(Long.parseLong(matcher.group(2)));
+                }
+            });
+        }
+        result.sort(null);
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RecordReader {
+        void read(DataInput in) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        void write(Path file) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface SnapshotReader {
+        void read(Path file) throws IOException;
+    }
+
+    /**
+     * Growable byte buffer that can go back and fill in a record header once the payload is written.
+     */
+    private static final class Buffer extends OutputStream {
+        private final CRC32C crc = new CRC32C();
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        @Override
+        public void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void skip(int length) {
+            ensure(length);
+            size += length;
+        }
+
+        void frame(int start) {
+            int payload = start + Integer.BYTES * 2;
+            crc.reset();
+            crc.update(bytes, payload, size - payload);
+            ByteBuffer.wrap(bytes, start, Integer.BYTES * 2)
+                    .putInt(size - payload)
+                    .putInt((int) crc.getValue());
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void truncate(int length) {
+            size = length;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory film and user storages backed by journals in one directory. Recovers both on creation, snapshots
+ * them periodically and once more on close, so a clean restart replays no journal at all.
+ */
+@Slf4j
+public class JournaledStorages implements AutoCloseable {
+    private final InMemoryFilmStorage films;
+    private final InMemoryUserStorage users;
+    private final Journal filmJournal;
+    private final Journal userJournal;
+    private final ScheduledExecutorService scheduler;
+
+    public JournaledStorages(Path dir, Duration snapshotInterval, boolean sync) {
+        filmJournal = new Journal(dir, "films", sync);
+        userJournal = new Journal(dir, "users", sync);
+        films = new InMemoryFilmStorage(filmJournal);
+        users = new InMemoryUserStorage(userJournal);
+        long start = System.nanoTime();
+        films.recover();
+        users.recover();
+        log.info("Хранилища восстановлены из {} за {} мс", dir, (System.nanoTime() - start) / 1_000_000);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshot, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public InMemoryFilmStorage films() {
+        return films;
+    }
+
+    public InMemoryUserStorage users() {
+        return users;
+    }
+
+    public void snapshot() {
+        try {
+            films.snapshot();
+            users.snapshot();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать снимок хранилищ", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        snapshot();
+        filmJournal.close();
+        userJournal.close();
+    }
+}
@@ -0,0 +1,265 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only snapshot of one storage laid out for {@link MappedByteBuffer} access:
+ * <pre>
+ * header     magic, version, next id, entity count, adjacency length, records length
+ * ids        long[count], ascending
+ * records    long[count + 1], offsets of the encoded scalar fields
+ * adjacency  long[count + 1], CSR row offsets into the id list below
+ * ids list   long[adjacency length], likes or friends of each entity, ascending
+ * fields     encoded scalar fields
+ * </pre>
+ * Lookups binary-search the id section, so a single entity and its adjacency can be read without loading the rest.
+ */
+public final class MappedSnapshot {
+    private static final int MAGIC = 0x464D5253;
+    private static final int VERSION = 1;
+    private static final int HEADER = 48;
+    private static final long CHUNK = 1L << 30;
+
+    private final MappedByteBuffer[] chunks;
+    private final long nextId;
+    private final int size;
+    private final long idsAt;
+    private final long recordsAt;
+    private final long adjacencyAt;
+    private final long listAt;
+    private final long fieldsAt;
+
+    private MappedSnapshot(MappedByteBuffer[] chunks) throws IOException {
+        this.chunks = chunks;
+        if (readInt(0) != MAGIC || readInt(4) != VERSION) {
+            throw new IOException("Неизвестный формат снимка");
+        }
+        nextId = readLong(8);
+        size = Math.toIntExact(readLong(16));
+        long listLength = readLong(24);
+        idsAt = HEADER;
+        recordsAt = idsAt + (long) size * Long.BYTES;
+        adjacencyAt = recordsAt + (size + 1L) * Long.BYTES;
+        listAt = adjacencyAt + (size + 1L) * Long.BYTES;
+        fieldsAt = listAt + listLength * Long.BYTES;
+    }
+
+    public static MappedSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK - 1) / CHUNK)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = i * CHUNK;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK, length - start));
+                chunks[i].order(ByteOrder.BIG_ENDIAN);
+            }
+            return new MappedSnapshot(chunks);
+        }
+    }
+
+    public long nextId() {
+        return nextId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int index) {
+        return readLong(idsAt + (long) index * Long.BYTES);
+    }
+
+    /**
+     * Position of the entity with the given id, or a negative value if the snapshot does not contain it.
+     */
+    public int indexOf(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = id(middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public int degree(int index) {
+        return (int) (offset(adjacencyAt, index + 1) - offset(adjacencyAt, index));
+    }
+
+    public long[] adjacency(int index) {
+        long from = offset(adjacencyAt, index);
+        long[] result = new long[degree(index)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = readLong(listAt + (from + i) * Long.BYTES);
+        }
+        return result;
+    }
+
+    public DataInput fields(int index) {
+        long from = offset(recordsAt, index);
+        byte[] bytes = new byte[(int) (offset(recordsAt, index + 1) - from)];
+        long position = fieldsAt + from;
+        int copied = 0;
+        while (copied < bytes.length) {
+            MappedByteBuffer chunk = chunks[(int) ((position + copied) / CHUNK)];
+            int at = (int) ((position + copied) % CHUNK);
+            int length = Math.min(bytes.length - copied, chunk.limit() - at);
+            chunk.get(at, bytes, copied, length);
+            copied += length;
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private long offset(long section, int index) {
+        return readLong(section + (long) index * Long.BYTES);
+    }
+
+    private long readLong(long position) {
+        return chunks[(int) (position / CHUNK)].getLong((int) (position % CHUNK));
+    }
+
+    private int readInt(long position) {
+        return chunks[(int) (position / CHUNK)].getInt((int) (position % CHUNK));
+    }
+
+    /**
+     * Streams entities in ascending id order into a snapshot file. Field bytes and adjacency lists go to temporary
+     * files next to the target; {@link #finish} writes the index sections and appends both.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final Path file;
+        private final Path listFile;
+        private final Path fieldsFile;
+        private final DataOutputStream list;
+        private final CountingOutputStream fieldBytes;
+        private final DataOutputStream fields;
+        private long[] ids = new long[1024];
+        private long[] records = new long[1025];
+        private long[] adjacency = new long[1025];
+        private int size;
+
+        public Writer(Path file) throws IOException {
+            this.file = file;
+            listFile = file.resolveSibling(file.getFileName() + ".list");
+            fieldsFile = file.resolveSibling(file.getFileName() + ".fields");
+            list = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(listFile), 1 << 16));
+            fieldBytes = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(fieldsFile), 1 << 16));
+            fields = new DataOutputStream(fieldBytes);
+        }
+
+        public void add(long id, long[] adjacentIds, Journal.RecordWriter fieldWriter) throws IOException {
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalArgumentException("Идентификаторы снимка должны возрастать");
+            }
+            if (size + 1 == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                records = Arrays.copyOf(records, ids.length + 1);
+                adjacency = Arrays.copyOf(adjacency, ids.length + 1);
+            }
+            ids[size] = id;
+            for (long adjacent : adjacentIds) {
+                list.writeLong(adjacent);
+            }
+            fieldWriter.write(fields);
+            size++;
+            records[size] = fieldBytes.count;
+            adjacency[size] = adjacency[size - 1] + adjacentIds.length;
+        }
+
+        public void finish(long nextId) throws IOException {
+            list.close();
+            fields.close();
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out),
+                        1 << 16));
+                index.writeInt(MAGIC);
+                index.writeInt(VERSION);
+                index.writeLong(nextId);
+                index.writeLong(size);
+                index.writeLong(adjacency[size]);
+                index.writeLong(records[size]);
+                index.writeLong(0L);
+                writeLongs(index, ids, size);
+                writeLongs(index, records, size + 1);
+                writeLongs(index, adjacency, size + 1);
+                index.flush();
+                append(out, listFile);
+                append(out, fieldsFile);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            list.close();
+            fields.close();
+            Files.deleteIfExists(listFile);
+            Files.deleteIfExists(fieldsFile);
+        }
+
+        private static void writeLongs(DataOutputStream out, long[] values, int count) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            for (int i = 0; i < count; i++) {
+                if (!buffer.hasRemaining()) {
+                    out.write(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                buffer.putLong(values[i]);
+            }
+            out.write(buffer.array(), 0, buffer.position());
+        }
+
+        private static final class CountingOutputStream extends FilterOutputStream {
+            private long count;
+
+            CountingOutputStream(OutputStream out) {
+                super(out);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                count++;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+                count += length;
+            }
+        }
+
+        private static void append(FileChannel out, Path part) throws IOException {
+            try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                long position = 0;
+                long length = in.size();
+                while (position < length) {
+                    position += in.transferTo(position, length - position, out);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link FilmStorage} decorator that times every call and publishes catalog size and total likes as gauges.
+ */
+public class MeteredFilmStorage implements FilmStorage {
+    private static final String STORAGE = "film";
+
+    private final FilmStorage delegate;
+    private final StorageMeter findAll;
+    private final StorageMeter create;
+    private final StorageMeter createAll;
+    private final StorageMeter update;
+    private final StorageMeter delete;
+    private final StorageMeter findById;
+    private final StorageMeter findPage;
+    private final StorageMeter findAllByIds;
+    private final StorageMeter addLike;
+    private final StorageMeter addLikes;
+    private final StorageMeter removeLike;
+    private final StorageMeter removeUserLikes;
+    private final StorageMeter findPopular;
+    private final StorageMeter findPopularFiltered;
+    private final StorageMeter findTrending;
+    private final StorageMeter search;
+    private final StorageMeter findLikedFilmIds;
+
+    public MeteredFilmStorage(FilmStorage delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        findAll = new StorageMeter(registry, STORAGE, "findAll");
+        create = new StorageMeter(registry, STORAGE, "create");
+        createAll = new StorageMeter(registry, STORAGE, "createAll");
+        update = new StorageMeter(registry, STORAGE, "update");
+        delete = new StorageMeter(registry, STORAGE, "delete");
+        findById = new StorageMeter(registry, STORAGE, "findById");
+        findPage = new StorageMeter(registry, STORAGE, "findPage");
+        findAllByIds = new StorageMeter(registry, STORAGE, "findAllByIds");
+        addLike = new StorageMeter(registry, STORAGE, "addLike");
+        addLikes = new StorageMeter(registry, STORAGE, "addLikes");
+        removeLike = new StorageMeter(registry, STORAGE, "removeLike");
+        removeUserLikes = new StorageMeter(registry, STORAGE, "removeUserLikes");
+        findPopular = new StorageMeter(registry, STORAGE, "findPopular");
+        findPopularFiltered = new StorageMeter(registry, STORAGE, "findPopularFiltered");
+        findTrending = new StorageMeter(registry, STORAGE, "findTrending");
+        search = new StorageMeter(registry, STORAGE, "search");
+        findLikedFilmIds = new StorageMeter(registry, STORAGE, "findLikedFilmIds");
+        Gauge.builder("filmorate.films", delegate, FilmStorage::count)
+                .description("Films in the catalog")
+                .register(registry);
+        Gauge.builder("filmorate.likes", delegate, FilmStorage::countLikes)
+                .description("Likes over all films")
+                .register(registry);
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        return findAll.record(delegate::findAll);
+    }
+
+    @Override
+    public Film create(Film film) {
+        return create.record(() -> delegate.create(film));
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return createAll.record(() -> delegate.createAll(films));
+    }
+
+    @Override
+    public Film update(Film newFilm) {
+        return update.record(() -> delegate.update(newFilm));
+    }
+
+    @Override
+    public void delete(Long id) {
+        delete.record(() -> delegate.delete(id));
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return findById.record(() -> delegate.findById(id));
+    }
+
+    @Override
+    public List<Film> findPage(Long after, int limit) {
+        return findPage.record(() -> delegate.findPage(after, limit));
+    }
+
+    @Override
+    public List<Film> findAllByIds(Collection<Long> ids) {
+        return findAllByIds.record(() -> delegate.findAllByIds(ids));
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        addLike.record(() -> delegate.addLike(filmId, userId));
+    }
+
+    @Override
+    public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+        addLikes.record(() -> delegate.addLikes(likesByFilm));
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        removeLike.record(() -> delegate.removeLike(filmId, userId));
+    }
+
+    @Override
+    public void removeUserLikes(Long userId) {
+        removeUserLikes.record(() -> delegate.removeUserLikes(userId));
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        return findPopular.record(() -> delegate.findPopular(count));
+    }
+
+    @Override
+    public List<Film> findPopular(int count, FilmFilter filter) {
+        return findPopularFiltered.record(() -> delegate.findPopular(count, filter));
+    }
+
+    @Override
+    public List<Film> search(String query, int limit) {
+        return search.record(() -> delegate.search(query, limit));
+    }
+
+    @Override
+    public List<Film> findTrending(TrendingWindow window, int count) {
+        return findTrending.record(() -> delegate.findTrending(window, count));
+    }
+
+    @Override
+    public long[] findLikedFilmIds(Long userId) {
+        return findLikedFilmIds.record(() -> delegate.findLikedFilmIds(userId));
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countLikes() {
+        return delegate.countLikes();
+    }
+}
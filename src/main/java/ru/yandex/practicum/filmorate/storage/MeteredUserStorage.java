@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link UserStorage} decorator that times every call and publishes user count and average friend-set size
+ * as gauges.
+ */
+public class MeteredUserStorage implements UserStorage {
+    private static final String STORAGE = "user";
+
+    private final UserStorage delegate;
+    private final StorageMeter findAll;
+    private final StorageMeter create;
+    private final StorageMeter createAll;
+    private final StorageMeter update;
+    private final StorageMeter delete;
+    private final StorageMeter findById;
+    private final StorageMeter findByEmail;
+    private final StorageMeter findByLogin;
+    private final StorageMeter findPage;
+    private final StorageMeter findAllByIds;
+    private final StorageMeter addFriend;
+    private final StorageMeter addFriends;
+    private final StorageMeter removeFriend;
+    private final StorageMeter removeFriendReferences;
+
+    public MeteredUserStorage(UserStorage delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        findAll = new StorageMeter(registry, STORAGE, "findAll");
+        create = new StorageMeter(registry, STORAGE, "create");
+        createAll = new StorageMeter(registry, STORAGE, "createAll");
+        update = new StorageMeter(registry, STORAGE, "update");
+        delete = new StorageMeter(registry, STORAGE, "delete");
+        findById = new StorageMeter(registry, STORAGE, "findById");
+        findByEmail = new StorageMeter(registry, STORAGE, "findByEmail");
+        findByLogin = new StorageMeter(registry, STORAGE, "findByLogin");
+        findPage = new StorageMeter(registry, STORAGE, "findPage");
+        findAllByIds = new StorageMeter(registry, STORAGE, "findAllByIds");
+        addFriend = new StorageMeter(registry, STORAGE, "addFriend");
+        addFriends = new StorageMeter(registry, STORAGE, "addFriends");
+        removeFriend = new StorageMeter(registry, STORAGE, "removeFriend");
+        removeFriendReferences = new StorageMeter(registry, STORAGE, "removeFriendReferences");
+        Gauge.builder("filmorate.users", delegate, UserStorage::count)
+                .description("Registered users")
+                .register(registry);
+        Gauge.builder("filmorate.friends.average", delegate, MeteredUserStorage::averageFriends)
+                .description("Average friend-set size")
+                .register(registry);
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return findAll.record(delegate::findAll);
+    }
+
+    @Override
+    public User create(User user) {
+        return create.record(() -> delegate.create(user));
+    }
+
+    @Override
+    public List<User> createAll(List<User> users) {
+        return createAll.record(() -> delegate.createAll(users));
+    }
+
+    @Override
+    public User update(User newUser) {
+        return update.record(() -> delegate.update(newUser));
+    }
+
+    @Override
+    public void delete(Long id) {
+        delete.record(() -> delegate.delete(id));
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return findById.record(() -> delegate.findById(id));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return findByEmail.record(() -> delegate.findByEmail(email));
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return findByLogin.record(() -> delegate.findByLogin(login));
+    }
+
+    @Override
+    public List<User> findPage(Long after, int limit) {
+        return findPage.record(() -> delegate.findPage(after, limit));
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        return findAllByIds.record(() -> delegate.findAllByIds(ids));
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        addFriend.record(() -> delegate.addFriend(userId, friendId));
+    }
+
+    @Override
+    public void addFriends(Map<Long, LongIdSet> friendsByUser) {
+        addFriends.record(() -> delegate.addFriends(friendsByUser));
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        removeFriend.record(() -> delegate.removeFriend(userId, friendId));
+    }
+
+    @Override
+    public void removeFriendReferences(Long deletedId, Collection<Long> userIds) {
+        removeFriendReferences.record(() -> delegate.removeFriendReferences(deletedId, userIds));
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countFriendLinks() {
+        return delegate.countFriendLinks();
+    }
+
+    private static double averageFriends(UserStorage storage) {
+        long users = storage.count();
+        return users == 0 ? 0 : (double) storage.countFriendLinks() / users;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Film ids ordered by like count (descending), ties broken by id (ascending).
+ * Kept up to date by the storage on every like change, so top-K reads cost O(K).
+ * Writers for the same film must be serialized by the caller; readers never block. Both structures are
+ * lock-free skip lists, so updates never hold a monitor (no pinning of virtual threads).
+ * <p>
+ * Moving a film is several skip-list operations, so a reader walking the ranking meanwhile can meet the film at
+ * its old place, its new place, both or neither. The new entry is added before the entries map points at it, and
+ * the old one stays in the ranking until the film moves again. A reader takes each film once: where its current
+ * entry is, or at a stale entry if the current one ranks higher, which means the film has moved up past the
+ * reader. Only a film that moves twice across the reader during one walk can still be missed.
+ */
+public class PopularityIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Entry> entries = new ConcurrentSkipListMap<>();
+    /**
+     * Entry each film had before its current one, still in the ranking for readers already past the new place.
+     */
+    private final Map<Long, Entry> previous = new ConcurrentHashMap<>();
+
+    public void put(long filmId, int likes) {
+        Entry entry = new Entry(filmId, likes);
+        Entry old = entries.get(filmId);
+        if (entry.equals(old)) {
+            return;
+        }
+        ranking.add(entry);
+        entries.put(filmId, entry);
+        Entry stale = old == null ? previous.remove(filmId) : previous.put(filmId, old);
+        if (stale != null && !stale.equals(entry)) {
+            ranking.remove(stale);
+        }
+    }
+
+    public void remove(long filmId) {
+        Entry old = entries.remove(filmId);
+        if (old != null) {
+            ranking.remove(old);
+        }
+        Entry stale = previous.remove(filmId);
+        if (stale != null) {
+            ranking.remove(stale);
+        }
+    }
+
+    public List<Long> top(int count) {
+        return top(count, filmId -> true);
+    }
+
+    /**
+     * The first {@code count} ids in ranking order that pass {@code filter}; walks the ranking until it has them.
+     */
+    public List<Long> top(int count, LongPredicate filter) {
+        List<Long> result = new ArrayList<>(Math.max(0, Math.min(count, entries.size())));
+        Set<Long> seen = new HashSet<>();
+        Iterator<Entry> iterator = ranking.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            Entry current = entries.get(entry.filmId());
+            if (current == null || !current.equals(entry) && ORDER.compare(current, entry) > 0) {
+                continue;
+            }
+            if (seen.add(entry.filmId()) && filter.test(entry.filmId())) {
+                result.add(entry.filmId());
+            }
+        }
+        return result;
+    }
+
+    private record Entry(long filmId, int likes) {
+    }
+}
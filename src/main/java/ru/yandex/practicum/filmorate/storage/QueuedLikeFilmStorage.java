@@ -0,0 +1,341 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link FilmStorage} decorator that accepts likes and unlikes into a bounded queue and applies them to the
+ * delegate in batches from a single writer thread, one {@link FilmStorage#addLikes} per batch. A full queue
+ * rejects the event with {@link TooManyRequestsException}.
+ * <p>
+ * Reads wait for the events enqueued before them: {@link #findById} and {@link #findAllByIds} for events of the
+ * requested films, scans for all of them. An idle queue costs reads one volatile read; under load they trail by at
+ * most one batch. {@link #count()} and {@link #countLikes()} do not wait.
+ * <p>
+ * A batch that fails with a {@link RuntimeException} is logged and skipped. Anything else stops the writer: the
+ * queued events are dropped, and the reads waiting for them and all later likes fail with
+ * {@link IllegalStateException} instead of waiting for a writer that is gone.
+ */
+@Slf4j
+public class QueuedLikeFilmStorage implements FilmStorage, AutoCloseable {
+    private static final LikeEvent STOP = new LikeEvent(-1, -1, -1, false);
+
+    private final FilmStorage delegate;
+    private final BlockingQueue<LikeEvent> queue;
+    private final int batchSize;
+    private final Map<Long, Long> pendingByFilm = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appliedChanged = lock.newCondition();
+    private final Thread writer;
+    private volatile long sequence;
+    private volatile long applied;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    public QueuedLikeFilmStorage(FilmStorage delegate, int capacity, int batchSize, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        Gauge.builder("filmorate.likes.queue", queue, BlockingQueue::size)
+                .description("Like events waiting to be written")
+                .register(registry);
+        writer = Thread.ofPlatform().name("likes-writer").daemon().start(this::drain);
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        awaitApplied(sequence);
+        return delegate.findAll();
+    }
+
+    @Override
+    public Film create(Film film) {
+        return delegate.create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> newFilms) {
+        return delegate.createAll(newFilms);
+    }
+
+    @Override
+    public Film update(Film newFilm) {
+        return delegate.update(newFilm);
+    }
+
+    @Override
+    public void delete(Long id) {
+        delegate.delete(id);
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        awaitFilm(id);
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Film> findPage(Long after, int limit) {
+        awaitApplied(sequence);
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public List<Film> findAllByIds(Collection<Long> ids) {
+        ids.forEach(this::awaitFilm);
+        return delegate.findAllByIds(ids);
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        enqueue(filmId, userId, true);
+    }
+
+    @Override
+    public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+        awaitApplied(sequence);
+        delegate.addLikes(likesByFilm);
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        enqueue(filmId, userId, false);
+    }
+
+    @Override
+    public void removeUserLikes(Long userId) {
+        awaitApplied(sequence);
+        delegate.removeUserLikes(userId);
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        awaitApplied(sequence);
+        return delegate.findPopular(count);
+    }
+
+    @Override
+    public List<Film> findPopular(int count, FilmFilter filter) {
+        awaitApplied(sequence);
+        return delegate.findPopular(count, filter);
+    }
+
+    @Override
+    public List<Film> search(String query, int limit) {
+        awaitApplied(sequence);
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public List<Film> findTrending(TrendingWindow window, int count) {
+        awaitApplied(sequence);
+        return delegate.findTrending(window, count);
+    }
+
+    @Override
+    public long[] findLikedFilmIds(Long userId) {
+        awaitApplied(sequence);
+        return delegate.findLikedFilmIds(userId);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countLikes() {
+        return delegate.countLikes();
+    }
+
+    /**
+     * Stops accepting events and returns once everything already queued is written.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(long filmId, long userId, boolean like) {
+        if (delegate.findById(filmId).isEmpty()) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        }
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new IllegalStateException("Запись лайков остановлена", failure);
+            }
+            if (closed) {
+                throw new TooManyRequestsException("Приём лайков остановлен");
+            }
+            long seq = sequence + 1;
+            if (!queue.offer(new LikeEvent(seq, filmId, userId, like))) {
+                throw new TooManyRequestsException("Очередь лайков переполнена, повторите запрос позже");
+            }
+            sequence = seq;
+            pendingByFilm.put(filmId, seq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitFilm(Long filmId) {
+        Long seq = pendingByFilm.get(filmId);
+        if (seq != null) {
+            awaitApplied(seq);
+        }
+    }
+
+    private void awaitApplied(long seq) {
+        if (applied >= seq) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (applied < seq && failure == null) {
+                appliedChanged.awaitUninterruptibly();
+            }
+            if (applied < seq) {
+                throw new IllegalStateException("Запись лайков остановлена", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        List<LikeEvent> batch = new ArrayList<>(batchSize);
+        boolean stopped = false;
+        try {
+            while (!stopped) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                stopped = batch.remove(STOP);
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Stops the queue after the writer died: drops what is queued and wakes the readers waiting for it.
+     */
+    private void fail(Throwable e) {
+        log.error("Запись лайков остановлена, в очереди отброшено событий: {}", queue.size(), e);
+        lock.lock();
+        try {
+            failure = e;
+            closed = true;
+            queue.clear();
+            appliedChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the batch keeping only the last event per film and user, then marks it applied even if the write
+     * failed so readers never wait for a lost batch.
+     */
+    private void write(List<LikeEvent> batch) {
+        Map<Long, LongIdSet> likes = new HashMap<>();
+        Map<Long, LongIdSet> unlikes = new HashMap<>();
+        for (LikeEvent event : batch) {
+            Map<Long, LongIdSet> to = event.like() ? likes : unlikes;
+            Map<Long, LongIdSet> from = event.like() ? unlikes : likes;
+            to.computeIfAbsent(event.filmId(), id -> new LongIdSet()).add(event.userId());
+            LongIdSet cancelled = from.get(event.filmId());
+            if (cancelled != null) {
+                cancelled.remove(event.userId());
+            }
+        }
+        likes.values().removeIf(LongIdSet::isEmpty);
+        try {
+            unlikes.forEach((filmId, userIds) -> {
+                for (long userId : userIds.toSortedArray()) {
+                    try {
+                        delegate.removeLike(filmId, userId);
+                    } catch (NotFoundException e) {
+                        log.debug("Лайк не удален: {}", e.getMessage());
+                    }
+                }
+            });
+            if (!likes.isEmpty()) {
+                writeLikes(likes);
+            }
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать пачку лайков: {}", batch.size(), e);
+        } finally {
+            markApplied(batch);
+        }
+    }
+
+    private void writeLikes(Map<Long, LongIdSet> likes) {
+        try {
+            delegate.addLikes(likes);
+        } catch (NotFoundException e) {
+            // A film was deleted after its likes were queued: write the rest film by film.
+            likes.forEach((filmId, userIds) -> {
+                try {
+                    delegate.addLikes(Map.of(filmId, userIds));
+                } catch (NotFoundException missing) {
+                    log.debug("Лайки не добавлены: {}", missing.getMessage());
+                }
+            });
+        }
+    }
+
+    private void markApplied(List<LikeEvent> batch) {
+        lock.lock();
+        try {
+            applied = batch.getLast().seq();
+            for (LikeEvent event : batch) {
+                pendingByFilm.remove(event.filmId(), event.seq());
+            }
+            appliedChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record LikeEvent(long seq, long filmId, long userId, boolean like) {
+    }
+}
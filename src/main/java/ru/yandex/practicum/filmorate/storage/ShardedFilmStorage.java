@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link FilmStorage} split into {@code n} {@link InMemoryFilmStorage} shards. Shard {@code k} hands out ids
+ * {@code k + 1}, {@code k + 1 + n}, ..., so the shard of a film is {@code (id - 1) mod n} and every shard has its
+ * own id counter, map, locks and popularity index. New films go to a random shard. {@link #findAll()} queries
+ * the shards in parallel and merges the results by id.
+ */
+public class ShardedFilmStorage implements FilmStorage {
+    private static final Comparator<Film> BY_ID = Comparator.comparing(Film::getId);
+    private static final Comparator<Film> BY_POPULARITY = Comparator.<Film>comparingInt(film -> film.getLikes().size())
+            .reversed()
+            .thenComparing(Film::getId);
+
+    private final InMemoryFilmStorage[] shards;
+
+    public ShardedFilmStorage(int shardCount) {
+        shards = new InMemoryFilmStorage[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryFilmStorage(i + 1, shardCount);
+        }
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        return Shards.stream(shards)
+                .flatMap(shard -> shard.findAll().stream())
+                .sorted(BY_ID)
+                .toList();
+    }
+
+    @Override
+    public Film create(Film film) {
+        return randomShard().create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> newFilms) {
+        return randomShard().createAll(newFilms);
+    }
+
+    @Override
+    public Film update(Film newFilm) {
+        return shard(newFilm.getId()).update(newFilm);
+    }
+
+    @Override
+    public void delete(Long id) {
+        shard(id).delete(id);
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return shard(id).findById(id);
+    }
+
+    @Override
+    public List<Film> findPage(Long after, int limit) {
+        List<Film> page = new ArrayList<>();
+        for (InMemoryFilmStorage shard : shards) {
+            page.addAll(shard.findPage(after, limit));
+        }
+        page.sort(BY_ID);
+        return page.size() > limit ? page.subList(0, limit) : page;
+    }
+
+    @Override
+    public List<Film> findAllByIds(Collection<Long> ids) {
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            shard(id).findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        shard(filmId).addLike(filmId, userId);
+    }
+
+    @Override
+    public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+        Map<InMemoryFilmStorage, Map<Long, LongIdSet>> byShard = new HashMap<>();
+        likesByFilm.forEach((filmId, userIds) ->
+                byShard.computeIfAbsent(shard(filmId), shard -> new HashMap<>()).put(filmId, userIds));
+        byShard.forEach(InMemoryFilmStorage::addLikes);
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        shard(filmId).removeLike(filmId, userId);
+    }
+
+    @Override
+    public void removeUserLikes(Long userId) {
+        for (InMemoryFilmStorage shard : shards) {
+            shard.removeUserLikes(userId);
+        }
+    }
+
+    /**
+     * Merges the top {@code count} of every shard, each already in the order of {@link PopularityIndex}, by
+     * repeatedly taking the best head. Each shard answers in O(count) from its index, so the shards are read in
+     * turn: a parallel fan-out costs more than it saves here.
+     */
+    @Override
+    public List<Film> findPopular(int count) {
+        List<List<Film>> tops = new ArrayList<>(shards.length);
+        for (InMemoryFilmStorage shard : shards) {
+            tops.add(shard.findPopular(count));
+        }
+        return mergePopular(tops, count);
+    }
+
+    @Override
+    public List<Film> findPopular(int count, FilmFilter filter) {
+        List<List<Film>> tops = new ArrayList<>(shards.length);
+        for (InMemoryFilmStorage shard : shards) {
+            tops.add(shard.findPopular(count, filter));
+        }
+        return mergePopular(tops, count);
+    }
+
+    @Override
+    public List<Film> search(String query, int limit) {
+        List<List<Film>> tops = new ArrayList<>(shards.length);
+        for (InMemoryFilmStorage shard : shards) {
+            tops.add(shard.search(query, limit));
+        }
+        return mergePopular(tops, limit);
+    }
+
+    private static List<Film> mergePopular(List<List<Film>> tops, int count) {
+        int[] heads = new int[tops.size()];
+        List<Film> result = new ArrayList<>(Math.max(0, count));
+        while (result.size() < count) {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] < tops.get(i).size() && (best < 0
+                        || BY_POPULARITY.compare(tops.get(i).get(heads[i]), tops.get(best).get(heads[best])) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            result.add(tops.get(best).get(heads[best]++));
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the top {@code count} trending entries of every shard together and loads the winners.
+     */
+    @Override
+    public List<Film> findTrending(TrendingWindow window, int count) {
+        List<TrendingIndex.Entry> entries = new ArrayList<>();
+        for (InMemoryFilmStorage shard : shards) {
+            entries.addAll(shard.trendingIndex().top(window, count));
+        }
+        List<Long> ids = entries.stream()
+                .sorted(TrendingIndex.ORDER)
+                .limit(Math.max(0, count))
+                .map(TrendingIndex.Entry::filmId)
+                .toList();
+        return findAllByIds(ids);
+    }
+
+    @Override
+    public long[] findLikedFilmIds(Long userId) {
+        return Shards.stream(shards)
+                .flatMapToLong(shard -> Arrays.stream(shard.findLikedFilmIds(userId)))
+                .sorted()
+                .toArray();
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (InMemoryFilmStorage shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public long countLikes() {
+        long count = 0;
+        for (InMemoryFilmStorage shard : shards) {
+            count += shard.countLikes();
+        }
+        return count;
+    }
+
+    private InMemoryFilmStorage shard(long id) {
+        return shards[Shards.index(id, shards.length)];
+    }
+
+    private InMemoryFilmStorage randomShard() {
+        return shards[ThreadLocalRandom.current().nextInt(shards.length)];
+    }
+}
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link UserStorage} split into {@code n} {@link InMemoryUserStorage} shards routed by id the same way as
+ * {@link ShardedFilmStorage}. A friendship between users of one shard is written by that shard; across shards
+ * each side is written by its own shard under a lock on the pair, so the two halves never interleave with another
+ * change of the same friendship or with deleting either user. Emails and logins are unique across shards: all shards claim them in the same
+ * {@link UniqueIndex}.
+ */
+public class ShardedUserStorage implements UserStorage {
+    private static final Comparator<User> BY_ID = Comparator.comparing(User::getId);
+
+    private final InMemoryUserStorage[] shards;
+    private final UniqueIndex emails = InMemoryUserStorage.emailIndex();
+    private final UniqueIndex logins = InMemoryUserStorage.loginIndex();
+    private final StripedLock pairLocks = new StripedLock();
+
+    public ShardedUserStorage(int shardCount) {
+        shards = new InMemoryUserStorage[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryUserStorage(i + 1, shardCount, emails, logins);
+        }
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return Shards.stream(shards)
+                .flatMap(shard -> shard.findAll().stream())
+                .sorted(BY_ID)
+                .toList();
+    }
+
+    @Override
+    public User create(User user) {
+        return randomShard().create(user);
+    }
+
+    @Override
+    public List<User> createAll(List<User> newUsers) {
+        return randomShard().createAll(newUsers);
+    }
+
+    @Override
+    public User update(User newUser) {
+        return shard(newUser.getId()).update(newUser);
+    }
+
+    /**
+     * Removes the user under its lock, which every cross-shard friendship change of the user also holds, so a
+     * concurrent {@link #addFriend} either finishes first and its friend is cleaned up below, or finds the user gone.
+     */
+    @Override
+    public void delete(Long id) {
+        LongIdSet friendIds = pairLocks.withLock(id, () -> shard(id).remove(id));
+        removeFriendReferences(id, friendIds);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return shard(id).findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        Long id = emails.find(email);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        Long id = logins.find(login);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public List<User> findPage(Long after, int limit) {
+        List<User> page = new ArrayList<>();
+        for (InMemoryUserStorage shard : shards) {
+            page.addAll(shard.findPage(after, limit));
+        }
+        page.sort(BY_ID);
+        return page.size() > limit ? page.subList(0, limit) : page;
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        List<User> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            shard(id).findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        InMemoryUserStorage userShard = shard(userId);
+        InMemoryUserStorage friendShard = shard(friendId);
+        if (userShard == friendShard) {
+            userShard.addFriend(userId, friendId);
+            return;
+        }
+        pairLocks.withLocks(userId, friendId, () -> {
+            requireExisting(userShard, userId);
+            requireExisting(friendShard, friendId);
+            userShard.addFriendOneWay(userId, friendId);
+            friendShard.addFriendOneWay(friendId, userId);
+        });
+    }
+
+    @Override
+    public void addFriends(Map<Long, LongIdSet> friendsByUser) {
+        friendsByUser.forEach((userId, friendIds) -> {
+            for (Long friendId : friendIds) {
+                addFriend(userId, friendId);
+            }
+        });
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        InMemoryUserStorage userShard = shard(userId);
+        InMemoryUserStorage friendShard = shard(friendId);
+        if (userShard == friendShard) {
+            userShard.removeFriend(userId, friendId);
+            return;
+        }
+        pairLocks.withLocks(userId, friendId, () -> {
+            requireExisting(userShard, userId);
+            requireExisting(friendShard, friendId);
+            userShard.removeFriendOneWay(userId, friendId);
+            friendShard.removeFriendOneWay(friendId, userId);
+        });
+    }
+
+    /**
+     * Friends in the shard of the deleted user are already cleaned up by that shard; the others are cleaned up
+     * under the pair lock, like a cross-shard {@link #removeFriend}.
+     */
+    @Override
+    public void removeFriendReferences(Long deletedId, Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            InMemoryUserStorage userShard = shard(userId);
+            pairLocks.withLocks(deletedId, userId,
+                    () -> userShard.removeFriendReferences(deletedId, List.of(userId)));
+        }
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (InMemoryUserStorage shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public long countFriendLinks() {
+        long count = 0;
+        for (InMemoryUserStorage shard : shards) {
+            count += shard.countFriendLinks();
+        }
+        return count;
+    }
+
+    private InMemoryUserStorage shard(long id) {
+        return shards[Shards.index(id, shards.length)];
+    }
+
+    private InMemoryUserStorage randomShard() {
+        return shards[ThreadLocalRandom.current().nextInt(shards.length)];
+    }
+
+    private static void requireExisting(InMemoryUserStorage shard, long id) {
+        if (shard.findById(id).isEmpty()) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден");
+        }
+    }
+}
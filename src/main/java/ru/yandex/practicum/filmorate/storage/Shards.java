@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Id routing shared by {@link ShardedFilmStorage} and {@link ShardedUserStorage}.
+ */
+final class Shards {
+    private Shards() {
+    }
+
+    /**
+     * Shard of {@code id} when shard {@code k} of {@code count} hands out ids {@code k + 1, k + 1 + count, ...}.
+     */
+    static int index(long id, int count) {
+        return (int) Math.floorMod(id - 1, (long) count);
+    }
+
+    /**
+     * Parallel stream over the shards, sequential when there is only one.
+     */
+    static <T> Stream<T> stream(T[] shards) {
+        Stream<T> stream = Arrays.stream(shards);
+        return shards.length > 1 ? stream.parallel() : stream;
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class StorageConfiguration {
+    private final boolean cacheEnabled;
+    private final long cacheSize;
+    private final Duration cacheTtl;
+    private final Duration popularTtl;
+    private final boolean likesAsync;
+    private final int likesQueueCapacity;
+    private final int likesBatchSize;
+    private final int shards;
+
+    public StorageConfiguration(@Value("${filmorate.cache.enabled:false}") boolean cacheEnabled,
+                                @Value("${filmorate.cache.maximum-size:100000}") long cacheSize,
+                                @Value("${filmorate.cache.ttl:PT5M}") Duration cacheTtl,
+                                @Value("${filmorate.cache.popular-ttl:PT1S}") Duration popularTtl,
+                                @Value("${filmorate.likes.async.enabled:false}") boolean likesAsync,
+                                @Value("${filmorate.likes.async.queue-capacity:10000}") int likesQueueCapacity,
+                                @Value("${filmorate.likes.async.batch-size:1000}") int likesBatchSize,
+                                @Value("${filmorate.storage.shards:1}") int shards) {
+        this.cacheEnabled = cacheEnabled;
+        this.cacheSize = cacheSize;
+        this.cacheTtl = cacheTtl;
+        this.popularTtl = popularTtl;
+        this.likesAsync = likesAsync;
+        this.likesQueueCapacity = likesQueueCapacity;
+        this.likesBatchSize = likesBatchSize;
+        this.shards = shards;
+    }
+
+    @Bean(destroyMethod = "close")
+    @Profile("!jdbc")
+    @ConditionalOnProperty("filmorate.journal.dir")
+    public JournaledStorages journaledStorages(@Value("${filmorate.journal.dir}") Path dir,
+                                               @Value("${filmorate.journal.snapshot-interval:PT10M}") Duration interval,
+                                               @Value("${filmorate.journal.sync:true}") boolean sync) {
+        if (shards > 1) {
+            throw new IllegalStateException("filmorate.storage.shards не поддерживается вместе с filmorate.journal.dir");
+        }
+        return new JournaledStorages(dir, interval, sync);
+    }
+
+    @Bean
+    @Profile("!jdbc")
+    public FilmStorage filmStorage(ObjectProvider<JournaledStorages> journaled, MeterRegistry meterRegistry) {
+        JournaledStorages storages = journaled.getIfAvailable();
+        FilmStorage storage;
+        if (storages != null) {
+            storage = storages.films();
+        } else {
+            storage = shards > 1 ? new ShardedFilmStorage(shards) : new InMemoryFilmStorage();
+        }
+        return queued(new MeteredFilmStorage(cached(storage, meterRegistry), meterRegistry), meterRegistry);
+    }
+
+    @Bean
+    @Profile("!jdbc")
+    public UserStorage userStorage(ObjectProvider<JournaledStorages> journaled, MeterRegistry meterRegistry) {
+        JournaledStorages storages = journaled.getIfAvailable();
+        UserStorage storage;
+        if (storages != null) {
+            storage = storages.users();
+        } else {
+            storage = shards > 1 ? new ShardedUserStorage(shards) : new InMemoryUserStorage();
+        }
+        return new MeteredUserStorage(cached(storage, meterRegistry), meterRegistry);
+    }
+
+    @Bean
+    @Profile("jdbc")
+    public FilmStorage jdbcFilmStorage(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactions,
+                                       MeterRegistry meterRegistry) {
+        FilmStorage storage = cached(new JdbcFilmStorage(jdbc, transactions), meterRegistry);
+        return queued(new MeteredFilmStorage(storage, meterRegistry), meterRegistry);
+    }
+
+    @Bean
+    @Profile("jdbc")
+    public UserStorage jdbcUserStorage(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactions,
+                                       MeterRegistry meterRegistry) {
+        return new MeteredUserStorage(cached(new JdbcUserStorage(jdbc, transactions), meterRegistry), meterRegistry);
+    }
+
+    private FilmStorage cached(FilmStorage storage, MeterRegistry meterRegistry) {
+        return cacheEnabled ? new CachingFilmStorage(storage, cacheSize, cacheTtl, popularTtl, meterRegistry) : storage;
+    }
+
+    /**
+     * Outermost so the metered {@code addLikes} times the writer's batches and the cache is invalidated when a
+     * batch is written rather than when a like is queued.
+     */
+    private FilmStorage queued(FilmStorage storage, MeterRegistry meterRegistry) {
+        return likesAsync
+                ? new QueuedLikeFilmStorage(storage, likesQueueCapacity, likesBatchSize, meterRegistry)
+                : storage;
+    }
+
+    private UserStorage cached(UserStorage storage, MeterRegistry meterRegistry) {
+        return cacheEnabled ? new CachingUserStorage(storage, cacheSize, cacheTtl, meterRegistry) : storage;
+    }
+}
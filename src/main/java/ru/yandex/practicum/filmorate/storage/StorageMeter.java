@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timer for one storage method. Failed calls are timed as well and additionally counted in
+ * {@code filmorate.storage.errors} by exception type.
+ */
+final class StorageMeter {
+    static final String TIMER = "filmorate.storage";
+    static final String ERRORS = "filmorate.storage.errors";
+
+    private final MeterRegistry registry;
+    private final String storage;
+    private final String method;
+    private final Timer timer;
+
+    StorageMeter(MeterRegistry registry, String storage, String method) {
+        this.registry = registry;
+        this.storage = storage;
+        this.method = method;
+        this.timer = Timer.builder(TIMER)
+                .description("Storage call latency")
+                .tag("storage", storage)
+                .tag("method", method)
+                .register(registry);
+    }
+
+    <T> T record(Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            registry.counter(ERRORS, "storage", storage, "method", method, "exception", e.getClass().getSimpleName())
+                    .increment();
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void record(Runnable call) {
+        record(() -> {
+            call.run();
+            return null;
+        });
+    }
+}
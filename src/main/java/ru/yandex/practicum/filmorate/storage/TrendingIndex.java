@@ -0,0 +1,352 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Film ids ordered by the likes they received within each {@link TrendingWindow} (descending), ties broken by id.
+ * A film counts its current likes that were made within the window, as the JDBC storage does. Every window keeps a
+ * ring of buckets holding, per film, the ids of the users who liked it in that bucket, plus a running total per
+ * film. A withdrawn like is removed from the bucket it was made in, so withdrawing a like made before the window
+ * leaves the window alone. Once the clock passes a bucket boundary, on a like or a read, the oldest buckets are
+ * subtracted from the totals and dropped, so the window rolls forward without rescanning likes and holds nothing
+ * older than itself.
+ * <p>
+ * Films are split into {@link #STRIPES} stripes, each with its own lock and rings, so likes of different
+ * films rarely contend. Writes only touch hash maps: changes are summed per film and applied to the ranking by the
+ * next read, so a like costs O(1) and a read O(K) plus one ranking update per film changed since the previous read.
+ */
+public class TrendingIndex {
+    static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+    private static final int STRIPES = 16;
+    private static final TrendingWindow LONGEST = TrendingWindow.WEEK;
+
+    private final Clock clock;
+    private final Ranking[] rankings = new Ranking[TrendingWindow.values().length];
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public TrendingIndex() {
+        this(Clock.systemUTC());
+    }
+
+    public TrendingIndex(Clock clock) {
+        this.clock = clock;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            rankings[window.ordinal()] = new Ranking();
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Current time of the index clock, in epoch milliseconds.
+     */
+    public long millis() {
+        return clock.millis();
+    }
+
+    /**
+     * Counts the user's like of the film made at {@code millis}; windows that have already moved past it ignore it.
+     */
+    public void like(long filmId, long userId, long millis) {
+        stripe(filmId).like(filmId, userId, millis);
+    }
+
+    /**
+     * Withdraws the user's like of the film from the windows that still hold the bucket it was made in. Does
+     * nothing for a like older than the longest window or one restored from a snapshot.
+     */
+    public void unlike(long filmId, long userId) {
+        stripe(filmId).unlike(filmId, userId);
+    }
+
+    public void remove(long filmId) {
+        stripe(filmId).remove(filmId);
+    }
+
+    /**
+     * Up to {@code count} films with likes made in the window ending now.
+     */
+    public List<Entry> top(TrendingWindow window, int count) {
+        long millis = clock.millis();
+        for (Stripe stripe : stripes) {
+            stripe.refresh(window, millis);
+        }
+        return rankings[window.ordinal()].top(count);
+    }
+
+    private Stripe stripe(long filmId) {
+        long h = filmId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h ^ (h >>> 32)) & (STRIPES - 1)];
+    }
+
+    public record Entry(long filmId, int likes) {
+    }
+
+    /**
+     * Ranking of one window over all stripes. A film is only ever adjusted under the lock of its stripe; the maps
+     * are concurrent so stripes adjust different films at once and readers iterate without a lock. A moved film
+     * keeps its previous entry in the ranking until it moves again and readers take each film once, as
+     * {@link PopularityIndex} does, so a reader does not lose a film that moves up past it.
+     */
+    private static final class Ranking {
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<Long, Entry> previous = new ConcurrentHashMap<>();
+        private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+        void adjust(long filmId, int delta) {
+            Entry old = entries.get(filmId);
+            int likes = (old == null ? 0 : old.likes()) + delta;
+            if (likes == 0) {
+                remove(filmId);
+                return;
+            }
+            Entry entry = new Entry(filmId, likes);
+            if (likes > 0) {
+                ranking.add(entry);
+            }
+            entries.put(filmId, entry);
+            Entry stale = old == null ? previous.remove(filmId) : previous.put(filmId, old);
+            if (stale != null && !stale.equals(entry)) {
+                ranking.remove(stale);
+            }
+        }
+
+        void remove(long filmId) {
+            Entry old = entries.remove(filmId);
+            if (old != null) {
+                ranking.remove(old);
+            }
+            Entry stale = previous.remove(filmId);
+            if (stale != null) {
+                ranking.remove(stale);
+            }
+        }
+
+        List<Entry> top(int count) {
+            List<Entry> result = new ArrayList<>(Math.max(0, Math.min(count, entries.size())));
+            Set<Long> seen = new HashSet<>();
+            Iterator<Entry> iterator = ranking.iterator();
+            while (result.size() < count && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                Entry current = entries.get(entry.filmId());
+                if (current == null || current.likes() <= 0 || seen.contains(entry.filmId())) {
+                    continue;
+                }
+                if (current.equals(entry) || ORDER.compare(current, entry) < 0) {
+                    seen.add(entry.filmId());
+                    result.add(current);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Films of one stripe: a ring per window.
+     */
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Ring[] rings = new Ring[TrendingWindow.values().length];
+
+        Stripe() {
+            for (TrendingWindow window : TrendingWindow.values()) {
+                rings[window.ordinal()] = new Ring(window);
+            }
+        }
+
+        void like(long filmId, long userId, long millis) {
+            lock.lock();
+            try {
+                for (Ring ring : rings) {
+                    ring.roll(millis);
+                    ring.add(filmId, userId, millis);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Finds the hour the like was made in from the longest window, then withdraws it from the buckets of the
+         * other windows within that hour.
+         */
+        void unlike(long filmId, long userId) {
+            lock.lock();
+            try {
+                Ring longest = rings[LONGEST.ordinal()];
+                long from = longest.withdraw(filmId, userId, Long.MIN_VALUE, Long.MAX_VALUE);
+                if (from == Long.MIN_VALUE) {
+                    return;
+                }
+                long to = from + longest.bucketMillis;
+                for (Ring ring : rings) {
+                    if (ring != longest) {
+                        ring.withdraw(filmId, userId, from, to);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(long filmId) {
+            lock.lock();
+            try {
+                for (TrendingWindow window : TrendingWindow.values()) {
+                    rings[window.ordinal()].remove(filmId);
+                    rankings[window.ordinal()].remove(filmId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Rolls every ring of the stripe forward, so buckets expire on reads as well as on likes, and applies the
+         * window's changes to its ranking.
+         */
+        void refresh(TrendingWindow window, long millis) {
+            Ring ring = rings[window.ordinal()];
+            if (!ring.isStale(millis)) {
+                return;
+            }
+            lock.lock();
+            try {
+                for (Ring each : rings) {
+                    each.roll(millis);
+                }
+                ring.drain(rankings[window.ordinal()]);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * One window of one stripe: per bucket, the users whose like of each film was made in it, so a film's count
+     * in a bucket is the size of its set and a withdrawn like is found in the bucket it was made in. Everything but
+     * {@link #isStale} runs under the stripe lock.
+     */
+    private static final class Ring {
+        private final long bucketMillis;
+        private final List<Map<Long, LongIdSet>> buckets;
+        private Map<Long, Integer> pending = new HashMap<>();
+        private volatile long current = Long.MIN_VALUE;
+        private volatile boolean dirty;
+
+        Ring(TrendingWindow window) {
+            bucketMillis = window.bucket().toMillis();
+            buckets = new ArrayList<>(window.buckets());
+            for (int i = 0; i < window.buckets(); i++) {
+                buckets.add(new HashMap<>());
+            }
+        }
+
+        /**
+         * Counts the like in the bucket of {@code millis}, unless the window has moved past it.
+         */
+        void add(long filmId, long userId, long millis) {
+            long bucket = Math.floorDiv(millis, bucketMillis);
+            if (current == Long.MIN_VALUE || bucket <= current - buckets.size() || bucket > current) {
+                return;
+            }
+            if (buckets.get(slot(bucket)).computeIfAbsent(filmId, id -> new LongIdSet()).add(userId)) {
+                change(filmId, 1);
+            }
+        }
+
+        /**
+         * Withdraws the like from the newest bucket between {@code from} and {@code to} (epoch milliseconds,
+         * exclusive) that holds it. Returns the start of that bucket, or {@link Long#MIN_VALUE} if none does.
+         */
+        long withdraw(long filmId, long userId, long from, long to) {
+            if (current == Long.MIN_VALUE) {
+                return Long.MIN_VALUE;
+            }
+            long oldest = Math.max(current - buckets.size() + 1, Math.floorDiv(from, bucketMillis));
+            for (long bucket = Math.min(current, Math.floorDiv(to - 1, bucketMillis)); bucket >= oldest; bucket--) {
+                Map<Long, LongIdSet> users = buckets.get(slot(bucket));
+                LongIdSet set = users.get(filmId);
+                if (set != null && set.remove(userId)) {
+                    if (set.isEmpty()) {
+                        users.remove(filmId);
+                    }
+                    change(filmId, -1);
+                    return bucket * bucketMillis;
+                }
+            }
+            return Long.MIN_VALUE;
+        }
+
+        void remove(long filmId) {
+            for (Map<Long, LongIdSet> users : buckets) {
+                users.remove(filmId);
+            }
+            pending.remove(filmId);
+        }
+
+        boolean isStale(long millis) {
+            return dirty || Math.floorDiv(millis, bucketMillis) > current;
+        }
+
+        /**
+         * Moves the ring forward to the bucket of {@code millis}, subtracting the buckets that leave the window.
+         */
+        void roll(long millis) {
+            long bucket = Math.floorDiv(millis, bucketMillis);
+            if (current == Long.MIN_VALUE) {
+                current = bucket;
+                return;
+            }
+            long steps = Math.min(bucket - current, buckets.size());
+            for (long i = 1; i <= steps; i++) {
+                Map<Long, LongIdSet> expired = buckets.set(slot(current + i), new HashMap<>());
+                expired.forEach((filmId, users) -> change(filmId, -users.size()));
+            }
+            if (bucket > current) {
+                current = bucket;
+            }
+        }
+
+        /**
+         * Applies the changes summed since the previous call to the window's ranking.
+         */
+        void drain(Ranking ranking) {
+            Map<Long, Integer> changes = pending;
+            pending = new HashMap<>();
+            changes.forEach(ranking::adjust);
+            dirty = false;
+        }
+
+        private void change(long filmId, int delta) {
+            pending.merge(filmId, delta, Ring::sum);
+            dirty = true;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) buckets.size());
+        }
+
+        private static Integer sum(Integer a, Integer b) {
+            int sum = a + b;
+            return sum == 0 ? null : sum;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash index of a unique user field for {@link InMemoryUserStorage}: normalized value to the id of the user who
+ * holds it. Values are trimmed and lower-cased, so "Mail@Mail.ru" and "mail@mail.ru" are the same value. A value is
+ * claimed with one {@code putIfAbsent}, so of two users racing for it exactly one gets it. The shards of
+ * {@link ShardedUserStorage} share one index per field.
+ */
+final class UniqueIndex {
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final String field;
+
+    /**
+     * Index whose conflicts are reported as "{@code field} ... уже используется".
+     */
+    UniqueIndex(String field) {
+        this.field = field;
+    }
+
+    /**
+     * Id of the user holding {@code value}, or null.
+     */
+    Long find(String value) {
+        return value == null ? null : ids.get(key(value));
+    }
+
+    /**
+     * Claims {@code value} for user {@code id}. Returns false if the user already held it.
+     *
+     * @throws ConflictException if another user holds the value
+     */
+    boolean claim(String value, long id) {
+        if (value == null) {
+            return false;
+        }
+        Long holder = ids.putIfAbsent(key(value), id);
+        if (holder != null && holder != id) {
+            throw new ConflictException(field + " " + value + " уже используется");
+        }
+        return holder == null;
+    }
+
+    /**
+     * Gives {@code value} to user {@code id} whoever held it; for records replayed from the journal or a snapshot.
+     */
+    void put(String value, long id) {
+        if (value != null) {
+            ids.put(key(value), id);
+        }
+    }
+
+    /**
+     * Frees {@code value} if user {@code id} holds it.
+     */
+    void release(String value, long id) {
+        if (value != null) {
+            ids.remove(key(value), id);
+        }
+    }
+
+    /**
+     * Frees the user's {@code oldValue} once it holds {@code newValue}, unless both are the same value.
+     */
+    void replace(String oldValue, String newValue, long id) {
+        if (oldValue != null && (newValue == null || !key(oldValue).equals(key(newValue)))) {
+            ids.remove(key(oldValue), id);
+        }
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
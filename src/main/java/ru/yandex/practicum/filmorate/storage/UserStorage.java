@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.LongIdSet;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserStorage {
@@ -10,9 +13,61 @@ public interface UserStorage {
 
     User create(User user);
 
+    /**
+     * Creates the users as one write.
+     */
+    List<User> createAll(List<User> users);
+
     public User update(User newUser);
 
+    /**
+     * Deletes the user together with its friendships: the id is also removed from the friends of its friends.
+     */
     void delete(Long id);
 
     Optional<User> findById(Long id);
+
+    /**
+     * Finds the user by email, ignoring case and surrounding spaces. {@link #create}, {@link #createAll} and
+     * {@link #update} throw {@code ConflictException} when an email or login compared this way belongs to another
+     * user.
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Finds the user by login, ignoring case and surrounding spaces.
+     */
+    Optional<User> findByLogin(String login);
+
+    /**
+     * Returns up to {@code limit} users with id greater than {@code after} (from the start if null), ordered by id.
+     */
+    List<User> findPage(Long after, int limit);
+
+    /**
+     * Returns the users with the given ids in the order of {@code ids}; unknown ids are skipped.
+     */
+    List<User> findAllByIds(Collection<Long> ids);
+
+    void addFriend(Long userId, Long friendId);
+
+    /**
+     * Adds mutual friendships of each user id with its friend ids as one write; all users must exist.
+     */
+    void addFriends(Map<Long, LongIdSet> friendsByUser);
+
+    void removeFriend(Long userId, Long friendId);
+
+    /**
+     * Removes {@code deletedId}, the id of a user that no longer exists, from the friends of {@code userIds};
+     * unknown users and users without that friend are skipped.
+     */
+    void removeFriendReferences(Long deletedId, Collection<Long> userIds);
+
+    long count();
+
+    /**
+     * Sum of the friend-set sizes over all users (each friendship is counted from both sides).
+     */
+    long countFriendLinks();
 }
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Checks of new films and of film updates. In an update null fields and duration -1 mean "unchanged".
+ * All constants and violations are built once, so a valid film is checked without allocating.
+ */
+@Component
+public class FilmValidator {
+    public static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    public static final int MAX_DESCRIPTION_LENGTH = 200;
+
+    private static final Violation NO_ID = new Violation("id", "Id должен быть указан");
+    private static final Violation BLANK_NAME = new Violation("name", "Название не может быть пустым");
+    private static final Violation BAD_DESCRIPTION = new Violation("description",
+            "Описание не может быть пустым и длиннее 200 символов");
+    private static final Violation LONG_DESCRIPTION = new Violation("description",
+            "Описание не может быть длиннее 200 символов");
+    private static final Violation EARLY_RELEASE = new Violation("releaseDate",
+            "Дата релиза - не раньше  28 декабря 1895 года");
+    private static final Violation BAD_DURATION = new Violation("duration",
+            "Продолжительность фильма должна быть положительным числом");
+
+    public List<Violation> validateNew(Film film) {
+        List<Violation> violations = List.of();
+        if (film.getName() == null || film.getName().isBlank()) {
+            violations = Violation.add(violations, BLANK_NAME);
+        }
+        if (film.getDescription() == null || film.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            violations = Violation.add(violations, BAD_DESCRIPTION);
+        }
+        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(MIN_RELEASE_DATE)) {
+            violations = Violation.add(violations, EARLY_RELEASE);
+        }
+        if (film.getDuration() <= 0) {
+            violations = Violation.add(violations, BAD_DURATION);
+        }
+        return violations;
+    }
+
+    public List<Violation> validateChanges(Film newFilm) {
+        List<Violation> violations = List.of();
+        if (newFilm.getId() == null) {
+            violations = Violation.add(violations, NO_ID);
+        }
+        if (newFilm.getName() != null && newFilm.getName().isBlank()) {
+            violations = Violation.add(violations, BLANK_NAME);
+        }
+        if (newFilm.getDescription() != null && newFilm.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            violations = Violation.add(violations, LONG_DESCRIPTION);
+        }
+        if (newFilm.getReleaseDate() != null && newFilm.getReleaseDate().isBefore(MIN_RELEASE_DATE)) {
+            violations = Violation.add(violations, EARLY_RELEASE);
+        }
+        if (newFilm.getDuration() != -1 && newFilm.getDuration() <= 0) {
+            violations = Violation.add(violations, BAD_DURATION);
+        }
+        return violations;
+    }
+
+    public void checkNew(Film film) {
+        Violation.throwIfAny(validateNew(film));
+    }
+
+    public void checkChanges(Film newFilm) {
+        Violation.throwIfAny(validateChanges(newFilm));
+    }
+}
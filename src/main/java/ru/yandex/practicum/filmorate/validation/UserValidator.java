@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Checks of new users and of user updates. In an update null fields mean "unchanged". Today's date is computed
+ * once per day rather than per check, so a valid user is checked without allocating.
+ */
+@Component
+public class UserValidator {
+    private static final Violation NO_ID = new Violation("id", "Id должен быть указан");
+    private static final Violation BAD_EMAIL = new Violation("email", "Имейл должен быть указан и содержать символ @");
+    private static final Violation BLANK_EMAIL = new Violation("email", "Имейл должен быть указан");
+    private static final Violation BAD_LOGIN = new Violation("login", "Логин не может быть пустым и содержать пробелы");
+    private static final Violation BLANK_LOGIN = new Violation("login", "Логин не может содержать пробелы");
+    private static final Violation FUTURE_BIRTHDAY = new Violation("birthday", "Дата рождения не может быть в будущем");
+
+    private final Clock clock;
+    private volatile Today today;
+
+    public UserValidator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public UserValidator(Clock clock) {
+        this.clock = clock;
+        this.today = Today.of(clock);
+    }
+
+    public List<Violation> validateNew(User user) {
+        List<Violation> violations = List.of();
+        if (user.getEmail() == null || user.getEmail().isBlank() || user.getEmail().indexOf('@') < 0) {
+            violations = Violation.add(violations, BAD_EMAIL);
+        }
+        if (user.getLogin() == null || user.getLogin().isBlank()) {
+            violations = Violation.add(violations, BAD_LOGIN);
+        }
+        if (user.getBirthday() == null || user.getBirthday().isAfter(today())) {
+            violations = Violation.add(violations, FUTURE_BIRTHDAY);
+        }
+        return violations;
+    }
+
+    public List<Violation> validateChanges(User newUser) {
+        List<Violation> violations = List.of();
+        if (newUser.getId() == null) {
+            violations = Violation.add(violations, NO_ID);
+        }
+        if (newUser.getEmail() != null && newUser.getEmail().isBlank()) {
+            violations = Violation.add(violations, BLANK_EMAIL);
+        }
+        if (newUser.getLogin() != null && newUser.getLogin().isBlank()) {
+            violations = Violation.add(violations, BLANK_LOGIN);
+        }
+        if (newUser.getBirthday() != null && newUser.getBirthday().isAfter(today())) {
+            violations = Violation.add(violations, FUTURE_BIRTHDAY);
+        }
+        return violations;
+    }
+
+    public void checkNew(User user) {
+        Violation.throwIfAny(validateNew(user));
+    }
+
+    public void checkChanges(User newUser) {
+        Violation.throwIfAny(validateChanges(newUser));
+    }
+
+    private LocalDate today() {
+        Today current = today;
+        if (clock.millis() >= current.endsAt()) {
+            current = Today.of(clock);
+            today = current;
+        }
+        return current.date();
+    }
+
+    private record Today(LocalDate date, long endsAt) {
+        static Today of(Clock clock) {
+            LocalDate date = LocalDate.now(clock);
+            return new Today(date, date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli());
+        }
+    }
+}
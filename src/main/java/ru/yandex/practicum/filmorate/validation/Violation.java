@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Failed check of one field.
+ */
+public record Violation(String field, String message) {
+
+    /**
+     * Appends {@code violation}, replacing the shared empty list on the first failure so passing values allocate
+     * nothing.
+     */
+    static List<Violation> add(List<Violation> violations, Violation violation) {
+        List<Violation> result = violations.isEmpty() ? new ArrayList<>(2) : violations;
+        result.add(violation);
+        return result;
+    }
+
+    static void throwIfAny(List<Violation> violations) {
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200) NOT NULL,
+    release_date DATE         NOT NULL,
+    duration     INT          NOT NULL,
+    like_count   INT          NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS films_popularity ON films (like_count DESC, id);
+
+CREATE INDEX IF NOT EXISTS films_release_date ON films (release_date);
+
+CREATE INDEX IF NOT EXISTS films_duration ON films (duration);
+
+CREATE TABLE IF NOT EXISTS users (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email     VARCHAR(255) NOT NULL,
+    login     VARCHAR(255) NOT NULL,
+    name      VARCHAR(255) NOT NULL,
+    birthday  DATE         NOT NULL,
+    email_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(TRIM(email))),
+    login_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(TRIM(login)))
+);
+
+-- Databases created before email and login were unique get the key columns. The unique indexes below then fail
+-- while the table holds duplicates; README.md shows how to find them before upgrading.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(TRIM(email)));
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS login_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(TRIM(login)));
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_email ON users (email_key);
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_login ON users (login_key);
+
+CREATE TABLE IF NOT EXISTS film_likes (
+    film_id  BIGINT    NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id  BIGINT    NOT NULL CONSTRAINT film_likes_user_fk REFERENCES users (id) ON DELETE CASCADE,
+    liked_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS film_likes_user ON film_likes (user_id, film_id);
+
+-- Databases created before likes were timed get the column; their existing likes count as liked at the upgrade.
+ALTER TABLE film_likes ADD COLUMN IF NOT EXISTS liked_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS film_likes_time ON film_likes (liked_at);
+
+-- Databases created before likes and friendships referenced users drop the rows left by deleted users, recounting
+-- the films that lose likes, and then get the foreign keys.
+UPDATE films SET like_count = (SELECT COUNT(*) FROM film_likes l JOIN users u ON u.id = l.user_id
+                               WHERE l.film_id = films.id)
+WHERE id IN (SELECT film_id FROM film_likes WHERE user_id NOT IN (SELECT id FROM users));
+
+DELETE FROM film_likes WHERE user_id NOT IN (SELECT id FROM users);
+
+ALTER TABLE film_likes ADD CONSTRAINT IF NOT EXISTS film_likes_user_fk
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
+
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT NOT NULL CONSTRAINT friendships_friend_fk REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend ON friendships (friend_id, user_id);
+
+DELETE FROM friendships WHERE friend_id NOT IN (SELECT id FROM users);
+
+ALTER TABLE friendships ADD CONSTRAINT IF NOT EXISTS friendships_friend_fk
+    FOREIGN KEY (friend_id) REFERENCES users (id) ON DELETE CASCADE;
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingStorageTest {
+    private MeterRegistry registry;
+    private FilmStorage films;
+    private UserStorage users;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(dataSource);
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        registry = new SimpleMeterRegistry();
+        films = new CachingFilmStorage(new JdbcFilmStorage(jdbc, transactions), 100, Duration.ofMinutes(5),
+                Duration.ofMinutes(5), registry);
+        users = new CachingUserStorage(new JdbcUserStorage(jdbc, transactions), 100, Duration.ofMinutes(5), registry);
+    }
+
+    @Test
+    public void testWritesInvalidateCachedFilm() {
+        films.create(film("First"));
+        users.create(user("first"));
+        films.findById(1L);
+        films.findById(1L);
+
+        films.addLike(1L, 1L);
+        assertEquals(List.of(1L), List.copyOf(films.findById(1L).orElseThrow().getLikes()));
+        films.removeLike(1L, 1L);
+        assertTrue(films.findById(1L).orElseThrow().getLikes().isEmpty());
+        films.update(Film.builder().id(1L).name("First v2").duration(-1).build());
+        assertEquals("First v2", films.findById(1L).orElseThrow().getName());
+        films.delete(1L);
+        assertTrue(films.findById(1L).isEmpty());
+
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "films", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    public void testPopularFilmsAreCachedPerCount() {
+        films.create(film("First"));
+        films.create(film("Second"));
+        assertEquals(List.of(1L, 2L), films.findPopular(2).stream().map(Film::getId).toList());
+
+        users.create(user("first"));
+        films.addLike(2L, 1L);
+        assertEquals(List.of(1L, 2L), films.findPopular(2).stream().map(Film::getId).toList());
+        assertEquals(List.of(2L), films.findPopular(1).stream().map(Film::getId).toList());
+
+        films.update(Film.builder().id(1L).name("First v2").duration(-1).build());
+        assertEquals(List.of(2L, 1L), films.findPopular(2).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    public void testFriendChangesInvalidateBothUsers() {
+        users.create(user("first"));
+        users.create(user("second"));
+        users.findById(1L);
+        users.findById(2L);
+
+        users.addFriend(1L, 2L);
+
+        assertEquals(List.of(2L), List.copyOf(users.findById(1L).orElseThrow().getFriends()));
+        assertEquals(List.of(2L, 1L), users.findAllByIds(List.of(2L, 1L, 3L)).stream().map(User::getId).toList());
+        assertEquals(List.of(1L), List.copyOf(users.findAllByIds(List.of(2L)).getFirst().getFriends()));
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
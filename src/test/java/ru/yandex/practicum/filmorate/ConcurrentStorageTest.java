@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentStorageTest {
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @BeforeEach
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+    }
+
+    @Test
+    public void testConcurrentCreateAssignsUniqueIds() throws Exception {
+        int perThread = 2_000;
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                filmStorage.create(film("Film" + thread + "-" + i));
+                userStorage.create(user("user" + thread + "-" + i));
+            }
+        });
+
+        Set<Long> filmIds = new HashSet<>();
+        filmStorage.findAll().forEach(film -> filmIds.add(film.getId()));
+        Set<Long> userIds = new HashSet<>();
+        userStorage.findAll().forEach(user -> userIds.add(user.getId()));
+
+        assertEquals(THREADS * perThread, filmIds.size());
+        assertEquals(THREADS * perThread, userIds.size());
+    }
+
+    @Test
+    public void testConcurrentLikesAreNotLost() throws Exception {
+        int films = 8;
+        int usersPerThread = 1_000;
+        for (int i = 0; i < films; i++) {
+            filmStorage.create(film("Film" + i));
+        }
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < usersPerThread; i++) {
+                long userId = (long) thread * usersPerThread + i + 1;
+                for (long filmId = 1; filmId <= films; filmId++) {
+                    filmStorage.addLike(filmId, userId);
+                }
+            }
+        });
+
+        for (long filmId = 1; filmId <= films; filmId++) {
+            assertEquals(THREADS * usersPerThread, filmStorage.findById(filmId).orElseThrow().getLikes().size());
+        }
+        assertEquals(films, filmStorage.findPopular(films).size());
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < usersPerThread; i += 2) {
+                long userId = (long) thread * usersPerThread + i + 1;
+                filmStorage.removeLike(1L, userId);
+            }
+        });
+
+        assertEquals(THREADS * usersPerThread / 2, filmStorage.findById(1L).orElseThrow().getLikes().size());
+        assertEquals(1L, filmStorage.findPopular(films).getLast().getId());
+    }
+
+    @Test
+    public void testConcurrentFriendshipsAreSymmetric() throws Exception {
+        int userCount = 200;
+        for (int i = 0; i < userCount; i++) {
+            userStorage.create(user("user" + i));
+        }
+
+        runConcurrently(THREADS, thread -> {
+            for (long userId = 1; userId <= userCount; userId++) {
+                for (long friendId = userId + 1; friendId <= userCount; friendId++) {
+                    if ((userId + friendId) % THREADS == thread) {
+                        userStorage.addFriend(userId, friendId);
+                    }
+                }
+            }
+        });
+
+        for (User user : userStorage.findAll()) {
+            assertEquals(userCount - 1, user.getFriends().size());
+        }
+    }
+
+    @Test
+    public void testConcurrentRenamesKeepSearchPostings() throws Exception {
+        int filmsPerThread = 100;
+        for (int i = 0; i < THREADS * filmsPerThread; i++) {
+            filmStorage.create(film("Alpha " + i));
+        }
+
+        runConcurrently(THREADS, thread -> {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < filmsPerThread; i++) {
+                    long filmId = (long) thread * filmsPerThread + i + 1;
+                    String name = round % 2 == 0 || i % 2 == 0 ? "Beta " + filmId : "Alpha " + filmId;
+                    filmStorage.update(Film.builder().id(filmId).name(name).duration(-1).build());
+                }
+            }
+        });
+
+        List<Long> expected = new ArrayList<>();
+        for (Film film : filmStorage.findAll()) {
+            if (film.getName().startsWith("Alpha")) {
+                expected.add(film.getId());
+            }
+        }
+        assertEquals(THREADS * filmsPerThread / 2, expected.size());
+        assertEquals(Set.copyOf(expected), Set.copyOf(filmStorage.search("alpha", THREADS * filmsPerThread)
+                .stream().map(Film::getId).toList()));
+    }
+
+    @Test
+    public void testOverlappingLikesCountEachPairOnce() throws Exception {
+        int films = 64;
+        int opsPerThread = 20_000;
+        for (int i = 0; i < films; i++) {
+            filmStorage.create(film("Film" + i));
+        }
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < opsPerThread; i++) {
+                filmStorage.addLike(1 + (i * 31L + thread) % films, (long) i % 5_000);
+            }
+        });
+
+        List<Set<Long>> expected = new ArrayList<>();
+        for (int i = 0; i < films; i++) {
+            expected.add(new HashSet<>());
+        }
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < opsPerThread; i++) {
+                expected.get((int) ((i * 31L + thread) % films)).add((long) i % 5_000);
+            }
+        }
+        long total = 0;
+        for (int i = 0; i < films; i++) {
+            Film film = filmStorage.findById(i + 1L).orElseThrow();
+            assertEquals(expected.get(i), Set.copyOf(film.getLikes()), "film " + film.getId());
+            total += expected.get(i).size();
+        }
+        assertEquals(total, filmStorage.countLikes());
+    }
+
+    private void runConcurrently(int threads, IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private User user(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmSearchTest {
+    private InMemoryFilmStorage filmStorage;
+    private FilmService filmService;
+
+    @BeforeEach
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        filmService = new FilmService(filmStorage, new InMemoryUserStorage(), new FilmValidator());
+    }
+
+    @Test
+    public void testMatchesWordPrefixesRankedByLikes() {
+        filmStorage.create(film("The Matrix", "A hacker learns the truth"));
+        filmStorage.create(film("Matrix Reloaded", "Neo returns"));
+        filmStorage.create(film("Ёлки", "Новогодняя комедия"));
+        filmStorage.create(film("Mathematics", "Documentary about matrices"));
+        filmStorage.addLike(2L, 1L);
+
+        assertEquals(List.of(2L, 1L, 4L), ids(filmService.search("matr", 10)));
+        assertEquals(List.of(2L, 1L), ids(filmService.search("MATRIX", 10)));
+        assertEquals(List.of(1L), ids(filmService.search("hack matrix", 10)));
+        assertEquals(List.of(3L), ids(filmService.search("елки комед", 10)));
+        assertEquals(List.of(2L), ids(filmService.search("matr", 1)));
+        assertTrue(filmService.search("trix", 10).isEmpty());
+        assertTrue(filmService.search("!!!", 10).isEmpty());
+        assertThrows(ValidationException.class, () -> filmService.search(" ", 10));
+        assertThrows(ValidationException.class, () -> filmService.search("matrix", 0));
+    }
+
+    @Test
+    public void testFollowsUpdatesAndDeletes() {
+        filmStorage.create(film("Alien", "Space horror"));
+        filmStorage.create(film("Aliens", "More space horror"));
+
+        filmStorage.update(Film.builder().id(1L).name("Prometheus").duration(-1).build());
+        filmStorage.delete(2L);
+
+        assertTrue(filmStorage.search("alien", 10).isEmpty());
+        assertEquals(List.of(1L), ids(filmStorage.search("prometheus horror", 10)));
+    }
+
+    @Test
+    public void testMatchesFullScan() {
+        String[] words = {"red", "green", "greenland", "blue", "black", "night", "nightmare", "day", "dark", "dawn"};
+        Random random = new Random(3);
+        int filmCount = 3_000;
+        for (int i = 0; i < filmCount; i++) {
+            filmStorage.create(film(words[random.nextInt(words.length)] + " " + i,
+                    words[random.nextInt(words.length)] + " and " + words[random.nextInt(3)]));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            filmStorage.addLike(1L + (long) (filmCount * Math.pow(random.nextDouble(), 2)), 1L + random.nextInt(500));
+        }
+
+        for (String query : List.of("d", "dar", "night", "green red", "gre bl", "and", "red 7", "1234", "x")) {
+            for (int limit : new int[]{1, 10, 100}) {
+                List<String> prefixes = Arrays.asList(query.split(" "));
+                List<Long> expected = filmStorage.findAll().stream()
+                        .filter(film -> prefixes.stream().allMatch(prefix -> Arrays.stream(
+                                (film.getName() + " " + film.getDescription()).toLowerCase(Locale.ROOT).split(" "))
+                                .anyMatch(term -> term.startsWith(prefix))))
+                        .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                                .thenComparing(Film::getId))
+                        .limit(limit)
+                        .map(Film::getId)
+                        .toList();
+                assertEquals(expected, ids(filmStorage.search(query, limit)), query + ", limit " + limit);
+            }
+        }
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private static Film film(String name, String description) {
+        return Film.builder()
+                .name(name)
+                .description(description)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+}
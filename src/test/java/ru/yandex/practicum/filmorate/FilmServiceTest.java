@@ -2,16 +2,18 @@ package ru.yandex.practicum.filmorate;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,12 +26,12 @@ public class FilmServiceTest {
     public void setUp() {
         filmStorage = new InMemoryFilmStorage();
         userStorage = new InMemoryUserStorage();
-        filmService = new FilmService(filmStorage, userStorage);
+        filmService = new FilmService(filmStorage, userStorage, new FilmValidator());
 
         Film film1 = Film.builder()
                 .id(1L)
                 .name("Film1")
-                .likes(new HashSet<>(Set.of(1L, 2L)))
+                .likes(LongIdSet.of(1L, 2L))
                 .description("Description1")
                 .releaseDate(LocalDate.of(2000, 1, 1))
                 .duration(100)
@@ -37,7 +39,7 @@ public class FilmServiceTest {
         Film film2 = Film.builder()
                 .id(2L)
                 .name("Film2")
-                .likes(new HashSet<>(Set.of(1L)))
+                .likes(LongIdSet.of(1L))
                 .description("Description2")
                 .releaseDate(LocalDate.of(2001, 1, 1))
                 .duration(120)
@@ -113,4 +115,40 @@ public class FilmServiceTest {
         assertEquals("Film3", topFilms.get(0).getName());
         assertEquals("Film1", topFilms.get(1).getName());
     }
+
+    @Test
+    public void testGetPopularFilmsByYearAndDuration() {
+        filmService.addLike(3L, 1L);
+
+        assertEquals(List.of("Film2"), filmService.getPopularFilms(10, new FilmFilter(2001, null, null)).stream()
+                .map(Film::getName).toList());
+        assertEquals(List.of("Film1", "Film3"), filmService.getPopularFilms(10, new FilmFilter(null, null, 100)).stream()
+                .map(Film::getName).toList());
+        assertEquals(List.of("Film1", "Film2", "Film3"), filmService.getPopularFilms(10, FilmFilter.NONE).stream()
+                .map(Film::getName).toList());
+        assertThrows(ValidationException.class, () -> filmService.getPopularFilms(10, new FilmFilter(null, 120, 90)));
+    }
+
+    @Test
+    public void testGetTrendingFilms() {
+        filmService.addLike(1L, 3L);
+        filmService.addLike(2L, 2L);
+        filmService.removeLike(2L, 1L);
+        filmService.addLike(3L, 2L);
+        filmService.addLike(3L, 3L);
+
+        List<Film> trending = filmService.getTrendingFilms("7d", 10);
+
+        assertEquals(List.of("Film3", "Film1", "Film2"), trending.stream().map(Film::getName).toList());
+        assertThrows(ValidationException.class, () -> filmService.getTrendingFilms("30d", 10));
+    }
+
+    @Test
+    public void testFindAllByIdsKeepsInputOrder() {
+        List<String> names = filmStorage.findAllByIds(List.of(3L, 1L, 42L, 2L)).stream()
+                .map(Film::getName)
+                .toList();
+
+        assertEquals(List.of("Film3", "Film1", "Film2"), names);
+    }
 }
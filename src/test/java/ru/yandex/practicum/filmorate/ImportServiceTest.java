@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ImportReport;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportServiceTest {
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+    private ImportService importService;
+
+    @BeforeEach
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        importService = new ImportService(filmStorage, userStorage, new FilmValidator(), new UserValidator(),
+                JsonMapper.builder().findAndAddModules().build());
+    }
+
+    @Test
+    public void testImportsJsonArrayAndReportsInvalidRecords() throws IOException {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < ImportService.CHUNK_SIZE + 5; i++) {
+            body.append(film("Film " + i)).append(',');
+        }
+        body.append("{\"name\":\"\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":10},");
+        body.append("{\"name\":\"Bad date\",\"releaseDate\":\"yesterday\"}]");
+
+        ImportReport report = importService.importFilms(stream(body.toString()));
+
+        assertEquals(ImportService.CHUNK_SIZE + 5, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(ImportService.CHUNK_SIZE + 5, report.getErrors().getFirst().index());
+        assertEquals("Название не может быть пустым", report.getErrors().getFirst().error());
+        assertEquals(ImportService.CHUNK_SIZE + 5, filmStorage.count());
+    }
+
+    @Test
+    public void testImportsNdjsonLikesAndFriends() throws IOException {
+        importService.importFilms(stream(film("First") + "\n" + film("Second") + "\n"));
+        importService.importUsers(stream(user("first") + "\n" + user("second") + "\n" + user("third") + "\n"));
+
+        ImportReport likes = importService.importLikes(stream(String.join("\n",
+                pair("filmId", 2, "userId", 1),
+                pair("filmId", 2, "userId", 3),
+                pair("filmId", 1, "userId", 2),
+                pair("filmId", 9, "userId", 1),
+                pair("filmId", 1, "userId", 9),
+                "{\"filmId\": \"one\", \"userId\": 1}")));
+        ImportReport friends = importService.importFriends(stream(String.join("\n",
+                pair("userId", 1, "friendId", 2),
+                pair("userId", 3, "friendId", 1),
+                pair("userId", 1, "friendId", 7))));
+
+        assertEquals(3, likes.getImported());
+        assertEquals(List.of("Фильм с id = 9 не найден", "Пользователь с id = 9 не найден",
+                "Поле filmId должно быть числом"), likes.getErrors().stream().map(ImportReport.RecordError::error).toList());
+        assertEquals(List.of(2L, 1L), filmStorage.findPopular(2).stream().map(Film::getId).toList());
+        assertEquals(3, filmStorage.countLikes());
+        assertEquals(2, friends.getImported());
+        assertEquals(2, friends.getErrors().getFirst().index());
+        assertEquals(List.of(2L, 3L), List.copyOf(userStorage.findById(1L).orElseThrow().getFriends()));
+        assertEquals(4, userStorage.countFriendLinks());
+
+        ImportReport users = importService.importUsers(stream(user("fourth") + "\n" + user("FIRST") + "\n"
+                + user("Fourth")));
+        assertEquals(1, users.getImported());
+        assertEquals(List.of("Имейл FIRST@mail.ru уже используется", "Имейл Fourth@mail.ru уже используется"),
+                users.getErrors().stream().map(ImportReport.RecordError::error).toList());
+    }
+
+    @Test
+    public void testMalformedJsonStopsImportAndReportsWhere() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < ImportService.CHUNK_SIZE + 1; i++) {
+            body.append(film("Film " + i)).append('\n');
+        }
+        body.append("{\"name\": 1}\n");
+
+        ImportReport report = importService.importFilms(stream(body + "{\"name\": "));
+
+        assertEquals(ImportService.CHUNK_SIZE + 1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(ImportService.CHUNK_SIZE + 2, report.getFatalError().index());
+        assertTrue(report.getFatalError().error().startsWith("Некорректный JSON"));
+        assertEquals(ImportService.CHUNK_SIZE + 1, filmStorage.count());
+        assertNull(importService.importFilms(stream(film("Film"))).getFatalError());
+    }
+
+    @Test
+    public void testFailedChunkIsNotWrittenAgain() {
+        AtomicInteger writes = new AtomicInteger();
+        FilmStorage failing = new InMemoryFilmStorage() {
+            @Override
+            public List<Film> createAll(List<Film> films) {
+                writes.incrementAndGet();
+                throw new IllegalStateException("Хранилище недоступно");
+            }
+        };
+        ImportService service = new ImportService(failing, userStorage, new FilmValidator(), new UserValidator(),
+                JsonMapper.builder().findAndAddModules().build());
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < ImportService.CHUNK_SIZE; i++) {
+            body.append(film("Film " + i)).append('\n');
+        }
+
+        assertThrows(IllegalStateException.class, () -> service.importFilms(stream(body.toString())));
+        assertEquals(1, writes.get());
+    }
+
+    private static String film(String name) {
+        return "{\"name\":\"" + name + "\",\"description\":\"Description\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":100}";
+    }
+
+    private static String user(String login) {
+        return "{\"email\":\"" + login + "@mail.ru\",\"login\":\"" + login + "\",\"birthday\":\"1990-01-01\"}";
+    }
+
+    private static String pair(String first, long firstId, String second, long secondId) {
+        return "{\"" + first + "\": " + firstId + ", \"" + second + "\": " + secondId + "}";
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.JdbcUserStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcStorageTest {
+    private JdbcFilmStorage films;
+    private JdbcUserStorage users;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = dataSource();
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+        connect(dataSource);
+    }
+
+    private void connect(DriverManagerDataSource dataSource) {
+        jdbc = new JdbcTemplate(dataSource);
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(dataSource);
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        films = new JdbcFilmStorage(named, transactions);
+        users = new JdbcUserStorage(named, transactions);
+    }
+
+    @Test
+    public void testFilmCrud() {
+        Film created = films.create(film("First"));
+        assertEquals(1L, created.getId());
+
+        Film updated = films.update(Film.builder().id(1L).name("First v2").duration(-1).build());
+        assertEquals("First v2", updated.getName());
+        assertEquals("Description", updated.getDescription());
+        assertEquals(120, updated.getDuration());
+
+        films.delete(1L);
+        assertTrue(films.findById(1L).isEmpty());
+        assertThrows(NotFoundException.class, () -> films.delete(1L));
+        assertThrows(NotFoundException.class,
+                () -> films.update(Film.builder().id(1L).name("Missing").duration(-1).build()));
+    }
+
+    @Test
+    public void testLikesKeepPopularOrder() {
+        for (int i = 0; i < 4; i++) {
+            films.create(film("Film " + i));
+        }
+        users.createAll(List.of(user("first"), user("second"), user("third")));
+        films.addLike(3L, 1L);
+        films.addLike(3L, 2L);
+        films.addLike(3L, 2L);
+        films.addLike(2L, 1L);
+        films.addLike(4L, 1L);
+        films.removeLike(4L, 1L);
+
+        assertEquals(List.of(3L, 2L, 1L), films.findPopular(3).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L, 2L, 1L), films.findPopular(3, new FilmFilter(2000, 100, 120)).stream()
+                .map(Film::getId).toList());
+        assertTrue(films.findPopular(3, new FilmFilter(2001, null, null)).isEmpty());
+        assertEquals(List.of(3L, 2L, 1L), films.search("FILM desc", 3).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), films.search("film 2", 3).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L, 2L), films.findTrending(TrendingWindow.HOUR, 3).stream().map(Film::getId).toList());
+        assertEquals(List.of(1L, 2L), List.copyOf(films.findById(3L).orElseThrow().getLikes()));
+        assertEquals(3, films.countLikes());
+        assertArrayEquals(new long[]{2L, 3L}, films.findLikedFilmIds(1L));
+        assertArrayEquals(new long[0], films.findLikedFilmIds(3L));
+        assertThrows(NotFoundException.class, () -> films.removeLike(4L, 1L));
+        assertThrows(NotFoundException.class, () -> films.addLike(99L, 1L));
+        assertThrows(NotFoundException.class, () -> films.addLike(1L, 99L));
+        assertThrows(NotFoundException.class, () -> films.addLikes(Map.of(1L, LongIdSet.of(3, 99))));
+        assertEquals(3, films.countLikes());
+
+        films.removeUserLikes(1L);
+        films.removeUserLikes(3L);
+        assertEquals(List.of(3L, 1L, 2L), films.findPopular(3).stream().map(Film::getId).toList());
+        assertEquals(1, films.countLikes());
+        assertArrayEquals(new long[0], films.findLikedFilmIds(1L));
+    }
+
+    @Test
+    public void testFindAllByIdsKeepsRequestOrder() {
+        for (int i = 0; i < 5; i++) {
+            films.create(film("Film " + i));
+        }
+        users.create(user("first"));
+        films.addLike(4L, 1L);
+
+        List<Film> found = films.findAllByIds(List.of(4L, 99L, 2L));
+
+        assertEquals(List.of(4L, 2L), found.stream().map(Film::getId).toList());
+        assertEquals(List.of(1L), List.copyOf(found.getFirst().getLikes()));
+        assertEquals(List.of(3L, 4L), films.findPage(2L, 2).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    public void testFriendsAreMutual() {
+        users.create(user("first"));
+        users.create(user("second"));
+        users.create(user("third"));
+
+        users.addFriend(1L, 2L);
+        users.addFriend(1L, 2L);
+        users.addFriend(1L, 3L);
+        users.removeFriend(1L, 3L);
+
+        assertEquals(List.of(2L), List.copyOf(users.findById(1L).orElseThrow().getFriends()));
+        assertEquals(List.of(1L), List.copyOf(users.findById(2L).orElseThrow().getFriends()));
+        assertEquals(2, users.countFriendLinks());
+        assertEquals("first", users.findById(1L).orElseThrow().getName());
+        assertThrows(NotFoundException.class, () -> users.addFriend(1L, 99L));
+
+        films.create(film("First"));
+        films.addLike(1L, 2L);
+
+        users.delete(2L);
+        assertEquals(2, users.count());
+        assertEquals(0, users.countFriendLinks());
+        assertTrue(films.findById(1L).orElseThrow().getLikes().isEmpty());
+        assertTrue(users.findById(1L).orElseThrow().getFriends().isEmpty());
+
+        assertEquals(3L, users.findByEmail(" THIRD@mail.ru").orElseThrow().getId());
+        assertTrue(users.findByLogin("Third").orElseThrow().getFriends().isEmpty());
+        assertThrows(ConflictException.class, () -> users.create(user("First")));
+        assertThrows(ConflictException.class,
+                () -> users.update(User.builder().id(3L).email("First@mail.ru").build()));
+        assertThrows(ConflictException.class, () -> users.createAll(List.of(user("fourth"), user("fourth"))));
+        assertEquals(2, users.count());
+        User second = users.create(user("second"));
+        assertEquals(second.getId(), users.findByLogin("second").orElseThrow().getId());
+    }
+
+    @Test
+    public void testBatchWrites() {
+        films.createAll(List.of(film("First"), film("Second"), film("Third")));
+        users.createAll(List.of(user("first"), user("second"), user("third")));
+
+        films.addLikes(Map.of(3L, LongIdSet.of(1, 2), 1L, LongIdSet.of(1)));
+        films.addLikes(Map.of(3L, LongIdSet.of(2, 3)));
+        users.addFriends(Map.of(1L, LongIdSet.of(2, 3)));
+
+        assertEquals(List.of(3L, 1L, 2L), films.findPopular(3).stream().map(Film::getId).toList());
+        assertEquals(4, films.countLikes());
+        assertEquals(List.of(1L), List.copyOf(users.findById(3L).orElseThrow().getFriends()));
+        assertEquals(4, users.countFriendLinks());
+        assertThrows(NotFoundException.class, () -> films.addLikes(Map.of(9L, LongIdSet.of(1))));
+        assertThrows(NotFoundException.class, () -> users.addFriends(Map.of(1L, LongIdSet.of(9))));
+    }
+
+    @Test
+    public void testSchemaUpgradesOlderDatabase() {
+        DriverManagerDataSource dataSource = dataSource();
+        JdbcTemplate old = new JdbcTemplate(dataSource);
+        old.execute("CREATE TABLE films (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, description VARCHAR(200) NOT NULL, release_date DATE NOT NULL, "
+                + "duration INT NOT NULL, like_count INT NOT NULL DEFAULT 0)");
+        old.execute("CREATE TABLE film_likes (film_id BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE, "
+                + "user_id BIGINT NOT NULL, PRIMARY KEY (film_id, user_id))");
+        old.execute("CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "email VARCHAR(255) NOT NULL, login VARCHAR(255) NOT NULL, name VARCHAR(255) NOT NULL, "
+                + "birthday DATE NOT NULL)");
+        old.update("INSERT INTO users (email, login, name, birthday) "
+                + "VALUES ('old@mail.ru', 'Old', 'Old', DATE '1990-01-01')");
+        old.update("INSERT INTO films (name, description, release_date, duration, like_count) "
+                + "VALUES ('Old', 'Description', DATE '2000-01-01', 120, 2)");
+        old.update("INSERT INTO film_likes (film_id, user_id) VALUES (1, 1), (1, 10)");
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+        connect(dataSource);
+
+        assertEquals(List.of(1L), List.copyOf(films.findById(1L).orElseThrow().getLikes()));
+        assertEquals(1, films.findPopular(1).getFirst().getLikes().size());
+        assertEquals(List.of(1L), films.findTrending(TrendingWindow.HOUR, 3).stream().map(Film::getId).toList());
+        films.create(film("New"));
+        users.createAll(List.of(user("second"), user("third")));
+        films.addLike(2L, 2L);
+        films.addLike(2L, 3L);
+        assertThrows(NotFoundException.class, () -> films.addLike(2L, 10L));
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+        assertEquals(3, films.countLikes());
+        assertEquals(List.of(2L, 1L), films.findTrending(TrendingWindow.HOUR, 3).stream().map(Film::getId).toList());
+        assertEquals(1L, users.findByLogin(" old ").orElseThrow().getId());
+        assertThrows(ConflictException.class, () -> users.create(user("OLD")));
+    }
+
+    @Test
+    public void testTrendingMatchesInMemoryStorage() {
+        MutableClock clock = new MutableClock(Instant.now().minus(Duration.ofHours(2)));
+        InMemoryFilmStorage memory = new InMemoryFilmStorage(clock);
+        users.createAll(List.of(user("first"), user("second"), user("third"), user("fourth")));
+        for (FilmStorage storage : List.of(films, memory)) {
+            for (int i = 0; i < 4; i++) {
+                storage.create(film("Film " + i));
+            }
+            storage.addLikes(Map.of(1L, LongIdSet.of(1, 2, 3), 2L, LongIdSet.of(1), 3L, LongIdSet.of(1, 2)));
+        }
+        jdbc.update("UPDATE film_likes SET liked_at = DATEADD('HOUR', -2, liked_at)");
+        clock.set(Instant.now());
+        for (FilmStorage storage : List.of(films, memory)) {
+            storage.removeLike(1L, 1L);
+            storage.removeLike(1L, 2L);
+            storage.addLike(1L, 4L);
+            storage.addLike(2L, 2L);
+            storage.addLike(2L, 3L);
+            storage.removeLike(3L, 1L);
+            storage.addLike(3L, 4L);
+            storage.addLike(4L, 1L);
+            storage.removeLike(4L, 1L);
+        }
+
+        for (TrendingWindow window : TrendingWindow.values()) {
+            assertEquals(trendingIds(memory, window), trendingIds(films, window), window.code());
+        }
+        assertEquals(List.of(2L, 1L, 3L), trendingIds(films, TrendingWindow.HOUR));
+        assertEquals(List.of(2L, 1L, 3L), trendingIds(films, TrendingWindow.DAY));
+    }
+
+    private static List<Long> trendingIds(FilmStorage storage, TrendingWindow window) {
+        return storage.findTrending(window, 10).stream().map(Film::getId).toList();
+    }
+
+    private static DriverManagerDataSource dataSource() {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.Journal;
+import ru.yandex.practicum.filmorate.storage.JournaledStorages;
+import ru.yandex.practicum.filmorate.storage.MappedSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testReplaysJournalAfterCrash() {
+        Journal journal = new Journal(dir, "films", true);
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(journal);
+        storage.recover();
+        storage.create(film("First"));
+        storage.create(film("Second"));
+        storage.create(film("Third"));
+        storage.addLike(1L, 10L);
+        storage.addLike(1L, 11L);
+        storage.addLike(2L, 10L);
+        storage.removeLike(1L, 10L);
+        storage.update(Film.builder().id(2L).name("Second v2").duration(-1).build());
+        storage.delete(3L);
+        journal.close();
+
+        InMemoryFilmStorage recovered = new InMemoryFilmStorage(new Journal(dir, "films", true));
+        recovered.recover();
+
+        assertEquals(2, recovered.count());
+        assertEquals(List.of(11L), List.copyOf(recovered.findById(1L).orElseThrow().getLikes()));
+        assertEquals("Second v2", recovered.findById(2L).orElseThrow().getName());
+        assertEquals("Description", recovered.findById(2L).orElseThrow().getDescription());
+        assertEquals(2, recovered.countLikes());
+        assertEquals(List.of(1L, 2L),
+                recovered.findTrending(TrendingWindow.DAY, 10).stream().map(Film::getId).toList());
+        assertEquals(4L, recovered.create(film("Fourth")).getId());
+    }
+
+    @Test
+    public void testSnapshotReplacesOldSegmentsAndKeepsTail() throws IOException {
+        JournaledStorages storages = new JournaledStorages(dir, Duration.ofHours(1), false);
+        for (int i = 0; i < 3; i++) {
+            storages.users().create(user("user" + i));
+        }
+        storages.users().addFriend(1L, 2L);
+        storages.snapshot();
+        storages.users().addFriend(1L, 3L);
+        storages.users().removeFriend(1L, 2L);
+        storages.users().update(User.builder().id(3L).name("Third").build());
+        storages.users().update(User.builder().id(2L).login("second").build());
+        storages.close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(4, files.count());
+        }
+        JournaledStorages recovered = new JournaledStorages(dir, Duration.ofHours(1), false);
+        InMemoryUserStorage users = recovered.users();
+
+        assertEquals(List.of(3L), List.copyOf(users.findById(1L).orElseThrow().getFriends()));
+        assertEquals(List.of(1L), List.copyOf(users.findById(3L).orElseThrow().getFriends()));
+        assertTrue(users.findById(2L).orElseThrow().getFriends().isEmpty());
+        assertEquals("Third", users.findById(3L).orElseThrow().getName());
+        assertEquals("user2", users.findById(3L).orElseThrow().getLogin());
+        assertEquals(2, users.countFriendLinks());
+        assertEquals(2L, users.findByLogin("second").orElseThrow().getId());
+        assertTrue(users.findByLogin("user1").isEmpty());
+        assertEquals(1L, users.findByEmail("user0@mail.ru").orElseThrow().getId());
+        assertThrows(ConflictException.class, () -> users.create(user("user2")));
+        recovered.close();
+    }
+
+    @Test
+    public void testServesMappedSnapshotBeforeLoading() throws IOException {
+        JournaledStorages storages = new JournaledStorages(dir, Duration.ofHours(1), false);
+        for (int i = 0; i < 1_000; i++) {
+            storages.films().create(film("Film" + i));
+            storages.films().addLike(i + 1L, 7L);
+        }
+        storages.films().addLike(500L, 8L);
+        storages.close();
+
+        Path snapshot;
+        try (Stream<Path> files = Files.list(dir)) {
+            snapshot = files.filter(file -> file.toString().matches(".*films-\\d+\\.snapshot")).findFirst().orElseThrow();
+        }
+        MappedSnapshot mapped = MappedSnapshot.open(snapshot);
+        int index = mapped.indexOf(500L);
+        assertEquals(1_000, mapped.size());
+        assertEquals(1_001L, mapped.nextId());
+        assertArrayEquals(new long[]{7L, 8L}, mapped.adjacency(index));
+        assertEquals(-1, mapped.indexOf(5_000L));
+
+        InMemoryFilmStorage films = new InMemoryFilmStorage(new Journal(dir, "films", true));
+        films.recover();
+        assertEquals("Film499", films.findById(500L).orElseThrow().getName());
+        films.delete(10L);
+        films.removeLike(500L, 8L);
+        films.awaitLoaded();
+
+        assertEquals(999, films.findAll().size());
+        assertTrue(films.findById(10L).isEmpty());
+        assertEquals(999, films.countLikes());
+        assertEquals(1_001L, films.create(film("New")).getId());
+    }
+
+    @Test
+    public void testIgnoresTornTail() throws IOException {
+        Journal journal = new Journal(dir, "films", true);
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(journal);
+        storage.recover();
+        storage.create(film("First"));
+        storage.addLike(1L, 10L);
+        journal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        InMemoryFilmStorage recovered = new InMemoryFilmStorage(new Journal(dir, "films", true));
+        recovered.recover();
+
+        assertEquals("First", recovered.findById(1L).orElseThrow().getName());
+        assertTrue(recovered.findById(1L).orElseThrow().getLikes().isEmpty());
+    }
+
+    @Test
+    public void testSyncThrowsWhenWriteFails() throws IOException {
+        List<FileChannel> channels = new ArrayList<>();
+        Journal journal = new Journal(dir, "films", true) {
+            @Override
+            protected FileChannel openChannel(Path file) throws IOException {
+                FileChannel channel = super.openChannel(file);
+                channels.add(channel);
+                return channel;
+            }
+        };
+        journal.open(file -> { }, in -> { });
+        channels.getLast().close();
+
+        journal.append(out -> out.writeLong(1L));
+
+        assertThrows(UncheckedIOException.class, journal::sync);
+        assertThrows(UncheckedIOException.class, journal::sync);
+        assertThrows(UncheckedIOException.class, () -> journal.append(out -> out.writeLong(2L)));
+        journal.close();
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private User user(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+}
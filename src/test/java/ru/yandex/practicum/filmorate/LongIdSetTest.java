@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongIdSetTest {
+
+    @Test
+    public void testBehavesLikeHashSet() {
+        Random random = new Random(7);
+        LongIdSet set = new LongIdSet();
+        Set<Long> expected = new HashSet<>();
+        for (int round = 0; round < 4; round++) {
+            int range = round % 2 == 0 ? 100 : 5_000;
+            for (int i = 0; i < 20_000; i++) {
+                long id = random.nextInt(range);
+                if (random.nextInt(3) > 0) {
+                    assertEquals(expected.add(id), set.add(id));
+                } else {
+                    assertEquals(expected.remove(id), set.remove(id));
+                }
+                assertEquals(expected.size(), set.size());
+            }
+            for (long id = -1; id <= range; id++) {
+                assertEquals(expected.contains(id), set.contains(id));
+            }
+            assertEquals(expected, set);
+            assertArrayEquals(new TreeSet<>(expected).stream().mapToLong(Long::longValue).toArray(),
+                    set.toSortedArray());
+            if (round == 1) {
+                set.clear();
+                expected.clear();
+            }
+        }
+    }
+
+    @Test
+    public void testShrinksBackAfterRemovals() {
+        LongIdSet set = new LongIdSet();
+        for (long id = 1; id <= 1_000; id++) {
+            set.add(id);
+        }
+        for (long id = 1; id <= 990; id++) {
+            assertTrue(set.remove(id));
+        }
+
+        assertEquals(10, set.size());
+        assertArrayEquals(new long[]{991, 992, 993, 994, 995, 996, 997, 998, 999, 1000}, set.toSortedArray());
+    }
+
+    @Test
+    public void testIteratorIsSortedAndSupportsRemove() {
+        LongIdSet set = LongIdSet.of(5, 3, 9, 1);
+
+        Iterator<Long> iterator = set.iterator();
+        assertEquals(1L, iterator.next());
+        iterator.remove();
+
+        assertEquals(List.of(3L, 5L, 9L), List.copyOf(set));
+    }
+
+    @Test
+    public void testIntersectMergesAndProbes() {
+        LongIdSet evens = new LongIdSet();
+        LongIdSet threes = new LongIdSet();
+        for (long id = 0; id < 3_000; id++) {
+            if (id % 2 == 0) {
+                evens.add(id);
+            }
+            if (id % 3 == 0) {
+                threes.add(id);
+            }
+        }
+        LongIdSet few = LongIdSet.of(6, 7, 2_994, 5_000);
+
+        long[] merged = LongIdSet.intersect(evens, threes);
+        long[] probed = LongIdSet.intersect(few, evens);
+
+        assertEquals(500, merged.length);
+        for (int i = 0; i < merged.length; i++) {
+            assertEquals(i * 6L, merged[i]);
+        }
+        assertArrayEquals(new long[]{6, 2_994}, probed);
+        assertArrayEquals(probed, LongIdSet.intersect(evens, few));
+        assertEquals(0, LongIdSet.intersect(new LongIdSet(), evens).length);
+    }
+
+    @Test
+    public void testSerializesToSameJsonArray() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Film film = Film.builder()
+                .id(1L)
+                .name("Film")
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .likes(LongIdSet.of(3L, 1L, 2L))
+                .build();
+
+        String json = objectMapper.writeValueAsString(film);
+        Film restored = objectMapper.readValue(json, Film.class);
+
+        assertTrue(json.contains("\"likes\":[1,2,3]"));
+        assertEquals(LongIdSet.of(1L, 2L, 3L), restored.getLikes());
+        assertEquals(film, restored);
+    }
+}
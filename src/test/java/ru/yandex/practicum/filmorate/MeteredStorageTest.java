@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.MeteredFilmStorage;
+import ru.yandex.practicum.filmorate.storage.MeteredUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MeteredStorageTest {
+    private MeterRegistry registry;
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        filmStorage = new MeteredFilmStorage(new InMemoryFilmStorage(), registry);
+        userStorage = new MeteredUserStorage(new InMemoryUserStorage(), registry);
+    }
+
+    @Test
+    public void testTimersAndGauges() {
+        for (int i = 0; i < 3; i++) {
+            userStorage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        filmStorage.create(Film.builder()
+                .name("Film")
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build());
+        filmStorage.addLike(1L, 1L);
+        filmStorage.addLike(1L, 2L);
+        filmStorage.addLike(1L, 2L);
+        userStorage.addFriend(1L, 2L);
+        filmStorage.findPopular(10);
+
+        assertEquals(3, registry.get("filmorate.storage").tags("storage", "film", "method", "addLike").timer().count());
+        assertEquals(1, registry.get("filmorate.storage").tags("storage", "film", "method", "findPopular").timer().count());
+        assertEquals(1, registry.get("filmorate.films").gauge().value());
+        assertEquals(2, registry.get("filmorate.likes").gauge().value());
+        assertEquals(3, registry.get("filmorate.users").gauge().value());
+        assertEquals(2.0 / 3, registry.get("filmorate.friends.average").gauge().value(), 1e-9);
+    }
+
+    @Test
+    public void testFailedCallsAreCounted() {
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(42L, 1L));
+
+        assertEquals(1, registry.get("filmorate.storage").tags("method", "addLike").timer().count());
+        assertEquals(1, registry.get("filmorate.storage.errors")
+                .tags("method", "addLike", "exception", "NotFoundException").counter().count());
+    }
+}
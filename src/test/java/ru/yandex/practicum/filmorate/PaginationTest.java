@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.controller.ErrorHandler;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.StreamingController;
+import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+public class PaginationTest {
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        FilmService filmService = new FilmService(filmStorage, userStorage, new FilmValidator());
+        UserService userService = new UserService(userStorage, filmStorage, new UserValidator());
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        mockMvc = standaloneSetup(new FilmController(filmService), new UserController(userService),
+                new StreamingController(filmService, userService, objectMapper))
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+
+        for (int i = 1; i <= 25; i++) {
+            filmStorage.create(Film.builder()
+                    .name("Film" + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(100)
+                    .build());
+            userStorage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+
+    @Test
+    public void testFindPageWalksIdsInOrder() {
+        List<Film> first = filmStorage.findPage(null, 10);
+        List<Film> second = filmStorage.findPage(first.getLast().getId(), 10);
+        List<Film> last = filmStorage.findPage(second.getLast().getId(), 10);
+
+        assertEquals(1L, first.getFirst().getId());
+        assertEquals(11L, second.getFirst().getId());
+        assertEquals(5, last.size());
+        assertEquals(25L, last.getLast().getId());
+        assertTrue(filmStorage.findPage(25L, 10).isEmpty());
+    }
+
+    @Test
+    public void testGetFilmsPage() throws Exception {
+        mockMvc.perform(get("/films").param("after", "5").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-After", "15"))
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[0].id").value(6));
+
+        mockMvc.perform(get("/films").param("after", "20").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-After"))
+                .andExpect(jsonPath("$.length()").value(5));
+    }
+
+    @Test
+    public void testGetUsersPageRejectsBadLimit() throws Exception {
+        mockMvc.perform(get("/users").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[2].login").value("user3"));
+
+        mockMvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testDefaultAcceptStillReturnsJsonArray() throws Exception {
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(25));
+    }
+
+    @Test
+    public void testStreamFilmsAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films").accept(MediaType.APPLICATION_NDJSON).param("after", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":21,"));
+        assertTrue(lines[4].startsWith("{\"id\":25,"));
+    }
+
+    @Test
+    public void testStreamAllUsersAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(25, body.lines().count());
+    }
+}
@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularityIndexTest {
+    private InMemoryFilmStorage filmStorage;
+
+    @BeforeEach
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+    }
+
+    @Test
+    public void testTopOrdersByLikesThenId() {
+        PopularityIndex index = new PopularityIndex();
+        index.put(1L, 2);
+        index.put(2L, 5);
+        index.put(3L, 2);
+        index.put(4L, 0);
+
+        assertEquals(List.of(2L, 1L, 3L, 4L), index.top(10));
+        assertEquals(List.of(2L, 1L), index.top(2));
+        assertTrue(index.top(0).isEmpty());
+
+        index.put(3L, 6);
+        index.remove(2L);
+
+        assertEquals(List.of(3L, 1L, 4L), index.top(10));
+    }
+
+    @Test
+    public void testTopTakesEachFilmOnceAtItsCurrentPlace() {
+        PopularityIndex index = new PopularityIndex();
+        index.put(1L, 5);
+        index.put(2L, 3);
+        index.put(1L, 1);
+
+        assertEquals(List.of(2L, 1L), index.top(10));
+
+        index.put(1L, 5);
+        index.put(1L, 4);
+        index.put(1L, 5);
+
+        assertEquals(List.of(1L, 2L), index.top(10));
+        assertEquals(List.of(1L), index.top(1));
+
+        index.remove(1L);
+
+        assertEquals(List.of(2L), index.top(10));
+    }
+
+    @Test
+    public void testTopNeverRepeatsFilmsWhileTheyMove() throws InterruptedException {
+        PopularityIndex index = new PopularityIndex();
+        int filmCount = 50;
+        for (long filmId = 1; filmId <= filmCount; filmId++) {
+            index.put(filmId, 0);
+        }
+        Thread writer = new Thread(() -> {
+            Random random = new Random(3);
+            for (int i = 0; i < 200_000; i++) {
+                index.put(1 + random.nextInt(filmCount), random.nextInt(100));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Long> top = index.top(filmCount);
+            assertEquals(top.size(), top.stream().distinct().count(), top.toString());
+        }
+        writer.join();
+        assertEquals(filmCount, index.top(filmCount).size());
+    }
+
+    @Test
+    public void testFindPopularMatchesFullSort() {
+        Random random = new Random(42);
+        int filmCount = 200;
+        for (int i = 0; i < filmCount; i++) {
+            filmStorage.create(film("Film" + i));
+        }
+        List<Long> deleted = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            long filmId = 1 + random.nextInt(filmCount);
+            long userId = 1 + random.nextInt(50);
+            if (deleted.contains(filmId)) {
+                continue;
+            }
+            Film film = filmStorage.findById(filmId).orElseThrow();
+            int action = random.nextInt(100);
+            if (action < 70) {
+                filmStorage.addLike(filmId, userId);
+            } else if (action < 99) {
+                if (film.getLikes().contains(userId)) {
+                    filmStorage.removeLike(filmId, userId);
+                }
+            } else {
+                filmStorage.delete(filmId);
+                deleted.add(filmId);
+            }
+
+            if (i % 1000 == 0) {
+                assertPopularMatchesSort(1 + random.nextInt(filmCount));
+            }
+        }
+        assertPopularMatchesSort(filmCount);
+    }
+
+    @Test
+    public void testFilteredPopularMatchesFullSort() {
+        Random random = new Random(7);
+        int filmCount = 2_000;
+        for (int i = 0; i < filmCount; i++) {
+            Film film = film("Film" + i);
+            film.setReleaseDate(LocalDate.of(1990 + random.nextInt(30), 1 + random.nextInt(12), 1));
+            film.setDuration(60 + random.nextInt(120));
+            filmStorage.create(film);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            filmStorage.addLike(1L + (long) (filmCount * Math.pow(random.nextDouble(), 2)), 1L + random.nextInt(500));
+        }
+        for (int i = 0; i < 200; i++) {
+            filmStorage.update(Film.builder()
+                    .id(1L + random.nextInt(filmCount))
+                    .releaseDate(LocalDate.of(1990 + random.nextInt(30), 6, 1))
+                    .duration(60 + random.nextInt(120))
+                    .build());
+        }
+        filmStorage.delete(1L);
+
+        List<FilmFilter> filters = List.of(
+                new FilmFilter(2000, null, null),
+                new FilmFilter(null, 90, null),
+                new FilmFilter(null, null, 61),
+                new FilmFilter(null, 100, 102),
+                new FilmFilter(2005, 150, 179),
+                new FilmFilter(1950, null, null),
+                new FilmFilter(null, 200, null));
+        for (FilmFilter filter : filters) {
+            for (int count : new int[]{1, 10, 1_000}) {
+                List<Long> expected = filmStorage.findAll().stream()
+                        .filter(filter::matches)
+                        .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                                .thenComparing(Film::getId))
+                        .limit(count)
+                        .map(Film::getId)
+                        .toList();
+                List<Long> actual = filmStorage.findPopular(count, filter).stream().map(Film::getId).toList();
+                assertEquals(expected, actual, filter + ", count " + count);
+            }
+        }
+    }
+
+    @Test
+    public void testFindPopularCountsInitialLikes() {
+        Film film = film("Liked");
+        film.getLikes().add(1L);
+        film.getLikes().add(2L);
+        filmStorage.create(film("Plain"));
+        filmStorage.create(film);
+
+        List<Film> popular = filmStorage.findPopular(2);
+
+        assertEquals("Liked", popular.get(0).getName());
+        assertEquals("Plain", popular.get(1).getName());
+    }
+
+    private void assertPopularMatchesSort(int count) {
+        List<Long> expected = filmStorage.findAll().stream()
+                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                        .thenComparing(Film::getId))
+                .limit(count)
+                .map(Film::getId)
+                .toList();
+        List<Long> actual = filmStorage.findPopular(count).stream()
+                .map(Film::getId)
+                .toList();
+        assertEquals(expected, actual);
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+}
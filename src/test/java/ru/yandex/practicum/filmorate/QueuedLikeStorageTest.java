@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.QueuedLikeFilmStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueuedLikeStorageTest {
+    private QueuedLikeFilmStorage films;
+
+    @AfterEach
+    public void tearDown() {
+        films.close();
+    }
+
+    @Test
+    public void testReadsSeeQueuedLikes() {
+        films = new QueuedLikeFilmStorage(new InMemoryFilmStorage(), 100, 10, new SimpleMeterRegistry());
+        films.create(film("First"));
+        films.create(film("Second"));
+
+        films.addLike(2L, 10L);
+        assertEquals(List.of(10L), List.copyOf(films.findById(2L).orElseThrow().getLikes()));
+        films.addLike(2L, 11L);
+        films.removeLike(2L, 10L);
+        assertEquals(List.of(2L, 1L), films.findPopular(2).stream().map(Film::getId).toList());
+        assertEquals(List.of(11L), List.copyOf(films.findById(2L).orElseThrow().getLikes()));
+        assertEquals(1, films.countLikes());
+    }
+
+    @Test
+    public void testUnknownFilmIsRejectedWhenQueued() {
+        films = new QueuedLikeFilmStorage(new InMemoryFilmStorage(), 100, 10, new SimpleMeterRegistry());
+
+        assertThrows(NotFoundException.class, () -> films.addLike(1L, 10L));
+    }
+
+    @Test
+    public void testLikesOfDeletedFilmAreDropped() {
+        films = new QueuedLikeFilmStorage(new InMemoryFilmStorage(), 100, 10, new SimpleMeterRegistry());
+        films.create(film("First"));
+        films.create(film("Second"));
+        films.delete(1L);
+
+        films.addLike(2L, 10L);
+        films.removeLike(2L, 11L);
+
+        assertEquals(List.of(2L), films.findPopular(10).stream().map(Film::getId).toList());
+        assertEquals(1, films.countLikes());
+    }
+
+    @Test
+    public void testFullQueueRejectsLikes() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilmStorage slow = new InMemoryFilmStorage() {
+            @Override
+            public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.addLikes(likesByFilm);
+            }
+        };
+        films = new QueuedLikeFilmStorage(slow, 1, 1, new SimpleMeterRegistry());
+        films.create(film("First"));
+
+        films.addLike(1L, 10L);
+        writing.await();
+        films.addLike(1L, 11L);
+        assertThrows(TooManyRequestsException.class, () -> films.addLike(1L, 12L));
+
+        release.countDown();
+        assertEquals(2, films.findById(1L).orElseThrow().getLikes().size());
+    }
+
+    @Test
+    public void testDeadWriterFailsWaitersAndNewLikes() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilmStorage broken = new InMemoryFilmStorage() {
+            @Override
+            public void addLikes(Map<Long, LongIdSet> likesByFilm) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new AssertionError("Хранилище сломано");
+            }
+        };
+        films = new QueuedLikeFilmStorage(broken, 10, 1, new SimpleMeterRegistry());
+        films.create(film("First"));
+
+        films.addLike(1L, 10L);
+        writing.await();
+        films.addLike(1L, 11L);
+        release.countDown();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IllegalStateException.class, () -> films.findById(1L)));
+        assertThrows(IllegalStateException.class, () -> films.addLike(1L, 12L));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> films.close());
+    }
+
+    @Test
+    public void testConcurrentLikesAreAllWritten() throws Exception {
+        films = new QueuedLikeFilmStorage(new InMemoryFilmStorage(), 100_000, 1_000, new SimpleMeterRegistry());
+        for (int i = 0; i < 10; i++) {
+            films.create(film("Film " + i));
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 1_000;
+                executor.submit(() -> {
+                    for (int user = 0; user < 1_000; user++) {
+                        films.addLike(1L + user % 10, (long) offset + user);
+                    }
+                });
+            }
+        }
+        films.close();
+
+        assertEquals(8_000, films.countLikes());
+        assertThrows(TooManyRequestsException.class, () -> films.addLike(1L, 1L));
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+}
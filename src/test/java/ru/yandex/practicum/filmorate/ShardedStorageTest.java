@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ShardedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.ShardedUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedStorageTest {
+    private static final int SHARDS = 4;
+
+    private ShardedFilmStorage films;
+    private ShardedUserStorage users;
+
+    @BeforeEach
+    public void setUp() {
+        films = new ShardedFilmStorage(SHARDS);
+        users = new ShardedUserStorage(SHARDS);
+    }
+
+    @Test
+    public void testScansMergeShardsInIdOrder() {
+        for (int i = 0; i < 100; i++) {
+            films.create(film("Film " + i));
+        }
+        List<Long> ids = films.findAll().stream().map(Film::getId).toList();
+        assertEquals(100, ids.size());
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertEquals(100, films.count());
+
+        List<Long> page = films.findPage(ids.get(9), 20).stream().map(Film::getId).toList();
+        assertEquals(ids.subList(10, 30), page);
+        assertEquals(ids.get(42), films.findById(ids.get(42)).orElseThrow().getId());
+        assertEquals(List.of(ids.get(5), ids.get(3)),
+                films.findAllByIds(List.of(ids.get(5), 10_000L, ids.get(3))).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    public void testPopularMergesTopOfEveryShard() {
+        List<Long> ids = LongStream.range(0, 20).map(i -> films.create(film("Film " + i)).getId()).boxed().toList();
+        for (int i = 0; i < 20; i++) {
+            for (long user = 0; user < i % 7; user++) {
+                films.addLike(ids.get(i), user);
+            }
+        }
+        films.addLikes(Map.of(ids.get(0), LongIdSet.of(1, 2, 3, 4, 5, 6, 7, 8)));
+
+        List<Film> expected = films.findAll().stream()
+                .sorted((a, b) -> a.getLikes().size() != b.getLikes().size()
+                        ? b.getLikes().size() - a.getLikes().size()
+                        : Long.compare(a.getId(), b.getId()))
+                .limit(5)
+                .toList();
+        assertEquals(expected, films.findPopular(5));
+        assertEquals(expected, films.findTrending(TrendingWindow.HOUR, 5));
+        assertEquals(expected, films.search("film", 5));
+        assertEquals(ids.get(0), films.findPopular(1).getFirst().getId());
+        assertTrue(films.findPopular(-1).isEmpty());
+        assertEquals(films.findAll().stream().mapToLong(film -> film.getLikes().size()).sum(), films.countLikes());
+    }
+
+    @Test
+    public void testFriendshipAcrossShardsIsMutual() {
+        List<Long> ids = LongStream.range(0, 8).map(i -> users.create(user(i)).getId()).boxed().toList();
+        for (Long friendId : ids.subList(1, ids.size())) {
+            users.addFriend(ids.getFirst(), friendId);
+        }
+        for (Long friendId : ids.subList(1, ids.size())) {
+            assertTrue(users.findById(friendId).orElseThrow().getFriends().contains(ids.getFirst()));
+        }
+        assertEquals(14, users.countFriendLinks());
+
+        users.removeFriend(ids.get(3), ids.getFirst());
+        assertFalse(users.findById(ids.getFirst()).orElseThrow().getFriends().contains(ids.get(3)));
+        assertTrue(users.findById(ids.get(3)).orElseThrow().getFriends().isEmpty());
+        assertThrows(NotFoundException.class, () -> users.addFriend(ids.getFirst(), 10_000L));
+        assertEquals(12, users.countFriendLinks());
+    }
+
+    @Test
+    public void testConcurrentFriendChangesStaySymmetric() throws Exception {
+        List<Long> ids = LongStream.range(0, 16).map(i -> users.create(user(i)).getId()).boxed().toList();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                int seed = thread;
+                executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        Long first = ids.get((seed + i) % ids.size());
+                        Long second = ids.get((seed * 7 + i * 3 + 1) % ids.size());
+                        if (first.equals(second)) {
+                            continue;
+                        }
+                        if (i % 2 == 0) {
+                            users.addFriend(first, second);
+                        } else {
+                            users.removeFriend(second, first);
+                        }
+                    }
+                });
+            }
+        }
+        for (User user : users.findAll()) {
+            for (Long friendId : user.getFriends()) {
+                assertTrue(users.findById(friendId).orElseThrow().getFriends().contains(user.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void testFriendsOfDeletedUsersAreCleanedUp() throws Exception {
+        List<Long> ids = LongStream.range(0, 64).map(i -> users.create(user(i)).getId()).boxed().toList();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int thread = 0; thread < 3; thread++) {
+                int seed = thread;
+                executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        Long first = ids.get((seed + i) % ids.size());
+                        Long second = ids.get((seed * 7 + i * 3 + 1) % ids.size());
+                        try {
+                            if (!first.equals(second)) {
+                                users.addFriend(first, second);
+                            }
+                        } catch (NotFoundException e) {
+                            // one of the pair is already deleted
+                        }
+                    }
+                });
+            }
+            executor.submit(() -> {
+                for (int i = 1; i < ids.size(); i += 2) {
+                    users.delete(ids.get(i));
+                    Thread.yield();
+                }
+            });
+        }
+        for (User user : users.findAll()) {
+            for (Long friendId : user.getFriends()) {
+                assertTrue(users.findById(friendId).isPresent(), user.getId() + " -> " + friendId);
+            }
+        }
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private static User user(long i) {
+        return User.builder()
+                .email("user" + i + "@mail.ru")
+                .login("user" + i)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.TrendingIndex;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendingIndexTest {
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private MutableClock clock;
+    private TrendingIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(START);
+        index = new TrendingIndex(clock);
+    }
+
+    @Test
+    public void testCountsCurrentLikesMadeInWindow() {
+        like(1L, 2);
+        like(2L, 3);
+        like(3L, 2);
+        like(4L, 1);
+        index.unlike(4L, 1L);
+        index.unlike(5L, 1L);
+
+        assertEquals(List.of(2L, 1L, 3L), ids(TrendingWindow.HOUR, 10));
+        assertEquals(List.of(2L, 1L), ids(TrendingWindow.WEEK, 2));
+        assertEquals(new TrendingIndex.Entry(2L, 3), index.top(TrendingWindow.DAY, 1).getFirst());
+        assertTrue(index.top(TrendingWindow.DAY, 0).isEmpty());
+
+        index.remove(2L);
+
+        assertEquals(List.of(1L, 3L), ids(TrendingWindow.DAY, 10));
+    }
+
+    @Test
+    public void testWindowsRollForward() {
+        like(1L, 1);
+        clock.advance(Duration.ofMinutes(30));
+        like(2L, 2);
+        clock.advance(Duration.ofMinutes(31));
+
+        assertEquals(List.of(2L), ids(TrendingWindow.HOUR, 10));
+        assertEquals(List.of(2L, 1L), ids(TrendingWindow.DAY, 10));
+
+        clock.advance(Duration.ofHours(24));
+        index.like(1L, 2L, clock.millis());
+
+        assertEquals(List.of(1L), ids(TrendingWindow.HOUR, 10));
+        assertEquals(List.of(1L), ids(TrendingWindow.DAY, 10));
+        assertEquals(List.of(1L, 2L), ids(TrendingWindow.WEEK, 10));
+
+        clock.advance(Duration.ofDays(30));
+
+        assertTrue(ids(TrendingWindow.WEEK, 10).isEmpty());
+    }
+
+    @Test
+    public void testIgnoresLikesOlderThanWindow() {
+        long now = clock.millis();
+        index.like(1L, 1L, now - Duration.ofHours(2).toMillis());
+        index.like(2L, 1L, now - Duration.ofDays(8).toMillis());
+
+        assertTrue(ids(TrendingWindow.HOUR, 10).isEmpty());
+        assertEquals(List.of(1L), ids(TrendingWindow.DAY, 10));
+        assertEquals(List.of(1L), ids(TrendingWindow.WEEK, 10));
+    }
+
+    @Test
+    public void testWithdrawnLikeCountsAtTimeOfLike() {
+        index.like(1L, 1L, clock.millis());
+        index.like(2L, 1L, clock.millis());
+        clock.advance(Duration.ofHours(2));
+        index.like(1L, 2L, clock.millis());
+        index.like(2L, 2L, clock.millis());
+        index.like(2L, 3L, clock.millis());
+        index.unlike(1L, 1L);
+        index.unlike(2L, 1L);
+        index.unlike(2L, 2L);
+
+        assertEquals(List.of(new TrendingIndex.Entry(1L, 1), new TrendingIndex.Entry(2L, 1)),
+                index.top(TrendingWindow.HOUR, 10));
+        assertEquals(List.of(new TrendingIndex.Entry(1L, 1), new TrendingIndex.Entry(2L, 1)),
+                index.top(TrendingWindow.DAY, 10));
+
+        clock.advance(Duration.ofDays(8));
+        index.like(3L, 1L, clock.millis());
+        index.unlike(1L, 2L);
+
+        assertEquals(List.of(3L), ids(TrendingWindow.WEEK, 10));
+    }
+
+    @Test
+    public void testMatchesRecountOfLikes() {
+        Random random = new Random(42);
+        Map<List<Long>, Long> likedAt = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            clock.advance(Duration.ofSeconds(random.nextInt(120)));
+            List<Long> like = List.of(1L + random.nextInt(50), 1L + random.nextInt(20));
+            if (likedAt.remove(like) != null) {
+                index.unlike(like.get(0), like.get(1));
+            } else {
+                likedAt.put(like, clock.millis());
+                index.like(like.get(0), like.get(1), clock.millis());
+            }
+
+            if (i % 1_000 == 0) {
+                for (TrendingWindow window : TrendingWindow.values()) {
+                    assertEquals(recount(likedAt, window), index.top(window, 50), window.code());
+                }
+            }
+        }
+    }
+
+    private List<TrendingIndex.Entry> recount(Map<List<Long>, Long> likedAt, TrendingWindow window) {
+        long start = window.start(clock.millis());
+        Map<Long, Integer> likes = new HashMap<>();
+        likedAt.forEach((like, millis) -> {
+            if (millis >= start) {
+                likes.merge(like.get(0), 1, Integer::sum);
+            }
+        });
+        return likes.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(entry -> new TrendingIndex.Entry(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingInt(TrendingIndex.Entry::likes).reversed()
+                        .thenComparingLong(TrendingIndex.Entry::filmId))
+                .limit(50)
+                .toList();
+    }
+
+    private void like(long filmId, int users) {
+        for (long userId = 1; userId <= users; userId++) {
+            index.like(filmId, userId, clock.millis());
+        }
+    }
+
+    private List<Long> ids(TrendingWindow window, int count) {
+        return index.top(window, count).stream().map(TrendingIndex.Entry::filmId).toList();
+    }
+}
@@ -10,8 +10,10 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
 
 import java.time.LocalDate;
 
@@ -30,7 +32,7 @@ public class UserControllerTest extends FilmorateApplicationTests {
     @BeforeEach
     public void setUp() {
         userStorage = new InMemoryUserStorage();
-        userService = new UserService(userStorage);
+        userService = new UserService(userStorage, new InMemoryFilmStorage(), new UserValidator());
         userController = new UserController(userService);
     }
 
@@ -62,8 +64,8 @@ public class UserControllerTest extends FilmorateApplicationTests {
     public void testCreateUserWithEmptyName() throws Exception {
         User user = User.builder()
                 .id(null)
-                .email("mail@mail.ru")
-                .login("testuser")
+                .email("noname@mail.ru")
+                .login("nonameuser")
                 .name(null)
                 .birthday(LocalDate.of(1946, 8, 20))
                 .build();
@@ -72,7 +74,36 @@ public class UserControllerTest extends FilmorateApplicationTests {
                         .content(objectMapper.writeValueAsString(user)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").isNotEmpty())
-                .andExpect(jsonPath("$.name").value("testuser"));
+                .andExpect(jsonPath("$.name").value("nonameuser"));
+    }
+
+    @Test
+    public void testCreateUserWithTakenEmail() throws Exception {
+        User user = User.builder()
+                .email("taken@mail.ru")
+                .login("takenuser")
+                .birthday(LocalDate.of(1946, 8, 20))
+                .build();
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk());
+
+        user.setLogin("otheruser");
+        user.setEmail("Taken@Mail.ru");
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Имейл Taken@Mail.ru уже используется"));
+        mockMvc.perform(get("/users/by-login/TakenUser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("taken@mail.ru"));
+        mockMvc.perform(get("/users/by-email").param("email", "taken@mail.ru"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("takenuser"));
+        mockMvc.perform(get("/users/by-login/otheruser"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -2,24 +2,42 @@ package ru.yandex.practicum.filmorate;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.LongIdSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ReferenceReconciler;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.ShardedUserStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class UserServiceTest {
     private UserStorage userStorage;
+    private FilmStorage filmStorage;
     private UserService userService;
 
     @BeforeEach
     public void setUp() {
         userStorage = new InMemoryUserStorage();
-        userService = new UserService(userStorage);
+        filmStorage = new InMemoryFilmStorage();
+        userService = new UserService(userStorage, filmStorage, new UserValidator());
     }
 
     @Test
@@ -107,4 +125,308 @@ public class UserServiceTest {
         assertEquals(1, commonFriends.size());
         assertTrue(commonFriends.contains(user3));
     }
+
+    @Test
+    public void testGetCommonFriendsOfLargeFriendLists() {
+        for (int i = 1; i <= 300; i++) {
+            userStorage.create(User.builder()
+                    .email("mail" + i + "@mail.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        for (long friendId = 3; friendId <= 300; friendId++) {
+            if (friendId % 2 == 0) {
+                userService.addFriend(1L, friendId);
+            }
+            if (friendId % 5 == 0) {
+                userService.addFriend(2L, friendId);
+            }
+        }
+
+        List<Long> commonIds = userService.getCommonFriends(1L, 2L).stream()
+                .map(User::getId)
+                .toList();
+
+        assertEquals(30, commonIds.size());
+        for (int i = 0; i < commonIds.size(); i++) {
+            assertEquals(10L * (i + 1), commonIds.get(i));
+        }
+    }
+
+    @Test
+    public void testGetFriends() {
+        for (int i = 1; i <= 4; i++) {
+            userStorage.create(User.builder()
+                    .email("mail" + i + "@mail.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, i))
+                    .build());
+        }
+        userService.addFriend(1L, 4L);
+        userService.addFriend(1L, 2L);
+
+        List<Long> friendIds = userService.getFriends(1L).stream()
+                .map(User::getId)
+                .toList();
+
+        assertEquals(List.of(2L, 4L), friendIds);
+        assertTrue(userService.getFriends(3L).isEmpty());
+    }
+
+    @Test
+    public void testFindAllByIdsKeepsInputOrder() {
+        for (int i = 1; i <= 3; i++) {
+            userStorage.create(User.builder()
+                    .email("mail" + i + "@mail.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, i))
+                    .build());
+        }
+
+        List<Long> ids = userStorage.findAllByIds(List.of(3L, 99L, 1L, 2L)).stream()
+                .map(User::getId)
+                .toList();
+
+        assertEquals(List.of(3L, 1L, 2L), ids);
+    }
+
+    @Test
+    public void testGetRecommendationsRanksByMutualFriends() {
+        for (int i = 1; i <= 6; i++) {
+            userStorage.create(User.builder()
+                    .email("mail" + i + "@mail.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, i))
+                    .build());
+        }
+        userService.addFriend(1L, 2L);
+        userService.addFriend(1L, 3L);
+        userService.addFriend(2L, 3L);
+        userService.addFriend(2L, 4L);
+        userService.addFriend(3L, 4L);
+        userService.addFriend(3L, 5L);
+
+        List<FriendRecommendation> recommendations = userService.getRecommendations(1L, 10);
+
+        assertEquals(List.of(4L, 5L), recommendations.stream().map(r -> r.user().getId()).toList());
+        assertEquals(List.of(2, 1), recommendations.stream().map(FriendRecommendation::mutualFriends).toList());
+        assertEquals(1, userService.getRecommendations(1L, 1).size());
+        assertTrue(userService.getRecommendations(6L, 10).isEmpty());
+        assertThrows(ValidationException.class, () -> userService.getRecommendations(1L, 0));
+    }
+
+    @Test
+    public void testGetRecommendationsMatchesBruteForce() {
+        int users = 500;
+        for (int i = 1; i <= users; i++) {
+            userStorage.create(User.builder()
+                    .email("mail" + i + "@mail.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            long first = 1 + random.nextInt(users);
+            long second = 1 + random.nextInt(users);
+            if (first != second) {
+                userService.addFriend(first, second);
+            }
+        }
+
+        User user = userStorage.findById(1L).orElseThrow();
+        Map<Long, Integer> mutual = new HashMap<>();
+        for (Long friendId : user.getFriends()) {
+            for (Long candidate : userStorage.findById(friendId).orElseThrow().getFriends()) {
+                if (candidate != 1L && !user.getFriends().contains(candidate)) {
+                    mutual.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        List<Long> expected = mutual.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> -mutual.get(id)).thenComparing(id -> id))
+                .limit(50)
+                .toList();
+
+        List<FriendRecommendation> recommendations = userService.getRecommendations(1L, 50);
+
+        assertEquals(expected, recommendations.stream().map(r -> r.user().getId()).toList());
+        for (FriendRecommendation recommendation : recommendations) {
+            assertEquals(mutual.get(recommendation.user().getId()), recommendation.mutualFriends());
+        }
+    }
+
+    @Test
+    public void testGetFilmRecommendationsFromSimilarUsers() {
+        for (int i = 1; i <= 4; i++) {
+            userStorage.create(User.builder()
+                    .email("mail" + i + "@mail.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(2000, 1, i))
+                    .build());
+        }
+        for (int i = 1; i <= 6; i++) {
+            filmStorage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, i))
+                    .duration(100)
+                    .build());
+        }
+        // user 2 shares two likes with user 1, user 3 shares one
+        likes(1L, 1L, 2L);
+        likes(2L, 1L, 2L, 3L, 4L);
+        likes(3L, 1L, 4L, 5L);
+        likes(4L, 6L);
+
+        List<Long> recommended = userService.getFilmRecommendations(1L, 10).stream().map(Film::getId).toList();
+
+        assertEquals(List.of(4L, 3L, 5L), recommended);
+        assertEquals(List.of(4L), userService.getFilmRecommendations(1L, 1).stream().map(Film::getId).toList());
+        assertTrue(userService.getFilmRecommendations(4L, 10).isEmpty());
+
+        filmStorage.removeLike(4L, 2L);
+        filmStorage.removeLike(4L, 3L);
+        filmStorage.delete(5L);
+        assertEquals(List.of(3L), userService.getFilmRecommendations(1L, 10).stream().map(Film::getId).toList());
+        assertArrayEquals(new long[]{1L, 2L, 3L}, filmStorage.findLikedFilmIds(2L));
+    }
+
+    @Test
+    public void testGetFilmRecommendationsScoresNewestLikesOfSimilarUsers() {
+        for (int i = 1; i <= 2; i++) {
+            userStorage.create(user("mail" + i + "@mail.com", "user" + i));
+        }
+        for (int i = 1; i <= 1_002; i++) {
+            filmStorage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(100)
+                    .build());
+            filmStorage.addLike((long) i, 2L);
+        }
+        filmStorage.addLike(1L, 1L);
+
+        List<Long> recommended = userService.getFilmRecommendations(1L, 1_000).stream().map(Film::getId).toList();
+
+        assertEquals(1_000, recommended.size());
+        assertEquals(3L, recommended.getFirst());
+        assertFalse(recommended.contains(2L));
+    }
+
+    @Test
+    public void testEmailAndLoginAreUnique() {
+        for (UserStorage storage : List.of(userStorage, new ShardedUserStorage(4))) {
+            UserService service = new UserService(storage, filmStorage, new UserValidator());
+            User first = service.create(user("First@Mail.com", "first"));
+            User second = service.create(user("second@mail.com", "second"));
+
+            assertEquals(first.getId(), service.findByEmail(" first@mail.COM").getId());
+            assertEquals(second.getId(), service.findByLogin("SECOND").getId());
+            assertThrows(NotFoundException.class, () -> service.findByLogin("third"));
+            assertThrows(ConflictException.class, () -> service.create(user("first@mail.com", "third")));
+            assertThrows(ConflictException.class, () -> service.create(user("third@mail.com", "First")));
+            assertThrows(ConflictException.class, () -> storage.createAll(List.of(
+                    user("third@mail.com", "third"), user("fourth@mail.com", "second"))));
+            assertTrue(storage.findByEmail("third@mail.com").isEmpty());
+            assertThrows(ConflictException.class,
+                    () -> service.update(User.builder().id(second.getId()).email("fourth@mail.com").login("first").build()));
+            assertTrue(storage.findByEmail("fourth@mail.com").isEmpty());
+
+            service.update(User.builder().id(first.getId()).email("renamed@mail.com").login("FIRST").build());
+            service.delete(second.getId());
+            User third = service.create(user("first@mail.com", "second"));
+
+            assertEquals(first.getId(), service.findByEmail("renamed@mail.com").getId());
+            assertEquals(first.getId(), service.findByLogin("first").getId());
+            assertEquals(third.getId(), service.findByEmail("first@mail.com").getId());
+            assertEquals(third.getId(), service.findByLogin("second").getId());
+        }
+    }
+
+    @Test
+    public void testDeleteRemovesFriendshipsAndLikes() {
+        for (UserStorage storage : List.of(new InMemoryUserStorage(), new ShardedUserStorage(4))) {
+            FilmStorage films = new InMemoryFilmStorage();
+            UserService service = new UserService(storage, films, new UserValidator());
+            for (int i = 1; i <= 8; i++) {
+                service.create(user("mail" + i + "@mail.com", "user" + i));
+                films.create(Film.builder()
+                        .name("Film " + i)
+                        .description("Description")
+                        .releaseDate(LocalDate.of(2000, 1, i))
+                        .duration(100)
+                        .build());
+            }
+            long deleted = storage.findByLogin("user1").orElseThrow().getId();
+            long friend = storage.findByLogin("user2").orElseThrow().getId();
+            for (User user : storage.findAll()) {
+                if (user.getId() != deleted) {
+                    service.addFriend(deleted, user.getId());
+                    films.addLike(1L + user.getId() % 8, deleted);
+                }
+            }
+            service.addFriend(friend, storage.findByLogin("user3").orElseThrow().getId());
+            films.addLike(1L, friend);
+
+            service.delete(deleted);
+
+            assertEquals(List.of(storage.findByLogin("user3").orElseThrow()), service.getFriends(friend));
+            assertEquals(2, storage.countFriendLinks());
+            for (User user : storage.findAll()) {
+                assertFalse(user.getFriends().contains(deleted));
+            }
+            assertEquals(1, films.countLikes());
+            assertEquals(0, films.findLikedFilmIds(deleted).length);
+            try (ReferenceReconciler reconciler = new ReferenceReconciler(storage, films, Duration.ofHours(1))) {
+                assertEquals(0L, reconciler.reconcile());
+            }
+        }
+    }
+
+    @Test
+    public void testReconcilerRemovesDanglingReferences() {
+        User first = userStorage.create(User.builder()
+                .email("mail1@mail.com")
+                .login("user1")
+                .birthday(LocalDate.of(2000, 1, 1))
+                .friends(LongIdSet.of(98, 99))
+                .build());
+        User second = userStorage.create(user("mail2@mail.com", "user2"));
+        userService.addFriend(first.getId(), second.getId());
+        Film film = filmStorage.create(Film.builder()
+                .name("Film")
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build());
+        filmStorage.addLike(film.getId(), second.getId());
+        filmStorage.addLike(film.getId(), 99L);
+
+        try (ReferenceReconciler reconciler = new ReferenceReconciler(userStorage, filmStorage, Duration.ofHours(1))) {
+            assertEquals(3L, reconciler.reconcile());
+            assertEquals(0L, reconciler.reconcile());
+        }
+
+        assertEquals(List.of(second), userService.getFriends(first.getId()));
+        assertEquals(List.of(second.getId()), List.copyOf(filmStorage.findById(film.getId()).orElseThrow().getLikes()));
+        assertEquals(0, filmStorage.findLikedFilmIds(99L).length);
+        assertEquals(2, userStorage.countFriendLinks());
+    }
+
+    private static User user(String email, String login) {
+        return User.builder()
+                .email(email)
+                .login(login)
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+
+    private void likes(long userId, long... filmIds) {
+        for (long filmId : filmIds) {
+            filmStorage.addLike(filmId, userId);
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.validation.FilmValidator;
+import ru.yandex.practicum.filmorate.validation.UserValidator;
+import ru.yandex.practicum.filmorate.validation.Violation;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValidatorTest {
+    private final FilmValidator filmValidator = new FilmValidator();
+
+    @Test
+    public void testValidFilmHasNoViolations() {
+        Film film = Film.builder()
+                .name("Film")
+                .description("Description")
+                .releaseDate(FilmValidator.MIN_RELEASE_DATE)
+                .duration(1)
+                .build();
+
+        assertSame(List.of(), filmValidator.validateNew(film));
+    }
+
+    @Test
+    public void testReportsEveryFailedField() {
+        Film film = Film.builder()
+                .name(" ")
+                .description("a".repeat(201))
+                .releaseDate(LocalDate.of(1895, 12, 27))
+                .duration(0)
+                .build();
+
+        assertEquals(List.of("name", "description", "releaseDate", "duration"),
+                filmValidator.validateNew(film).stream().map(Violation::field).toList());
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> filmValidator.checkChanges(Film.builder().name("").duration(-1).build()));
+        assertEquals(List.of(new Violation("id", "Id должен быть указан"),
+                new Violation("name", "Название не может быть пустым")), e.getViolations());
+        assertEquals("Id должен быть указан; Название не может быть пустым", e.getMessage());
+    }
+
+    @Test
+    public void testBirthdayIsCheckedAgainstCurrentDay() {
+        ZoneId zone = ZoneOffset.UTC;
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-10T23:59:00Z"), zone);
+        UserValidator userValidator = new UserValidator(clock);
+        User user = User.builder()
+                .email("mail@mail.ru")
+                .login("login")
+                .birthday(LocalDate.of(2024, 3, 11))
+                .build();
+
+        assertEquals(List.of(new Violation("birthday", "Дата рождения не может быть в будущем")),
+                userValidator.validateNew(user));
+        clock.instant = Instant.parse("2024-03-11T00:00:00Z");
+        assertTrue(userValidator.validateNew(user).isEmpty());
+    }
+
+    private static final class MutableClock extends Clock {
+        private final ZoneId zone;
+        private Instant instant;
+
+        MutableClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}